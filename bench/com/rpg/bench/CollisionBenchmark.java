@@ -0,0 +1,63 @@
+package com.rpg.bench;
+
+import com.rpg.config.GameConfig;
+import com.rpg.config.TileGrid;
+import com.rpg.util.TileCollision;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The tile-sized wall check the simulation runs for every player move,
+ * at random positions across the level. One operation is one check.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+    private static final int TILE_SIZE = GameConfig.TILE_SIZE;
+    private static final int POSITIONS = 1024;
+
+    @Param({"shipped", "1024"})
+    public String map;
+
+    private TileGrid grid;
+    private final double[] xs = new double[POSITIONS];
+    private final double[] ys = new double[POSITIONS];
+
+    @Setup
+    public void setUp() {
+        grid = TileGrid.fromMatrix(MapGenerator.walls(map));
+        Random random = new Random(MapGenerator.SEED);
+        for (int i = 0; i < POSITIONS; i++) {
+            xs[i] = random.nextDouble() * (grid.getWidth() - 1) * TILE_SIZE;
+            ys[i] = random.nextDouble() * (grid.getHeight() - 1) * TILE_SIZE;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public int collides() {
+        int hits = 0;
+        for (int i = 0; i < POSITIONS; i++) {
+            if (TileCollision.collides(grid, xs[i], ys[i], TILE_SIZE, TILE_SIZE, TILE_SIZE)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,94 @@
+package com.rpg.bench;
+
+import com.rpg.config.EnvironmentMatrix;
+import com.rpg.config.TileGrid;
+import com.rpg.util.FlowField;
+import java.util.Random;
+
+/**
+ * Seeded level generator for benchmarks. Levels are open ground with a
+ * border wall and scattered wall tiles; the area around the player start
+ * is always kept clear. The same size and seed always give the same level,
+ * so runs stay comparable.
+ */
+public final class MapGenerator {
+    public static final long SEED = 42;
+    // Size of the default level, in tiles: the size of the old fixed world, so results compare with earlier runs.
+    public static final int DEFAULT_WIDTH = 65;
+    public static final int DEFAULT_HEIGHT = 30;
+    private static final double WALL_DENSITY = 0.2;
+
+    private MapGenerator() {
+    }
+
+    /**
+     * Builds a level of the given size. "shipped" stands for the built-in
+     * level; any other value is taken as the edge length of a square level.
+     */
+    public static int[][] walls(String size) {
+        if ("shipped".equals(size)) {
+            return new EnvironmentMatrix().getMatrix();
+        }
+        int edge = Integer.parseInt(size);
+        return walls(edge, edge, SEED);
+    }
+
+    public static int[][] defaultWalls() {
+        return walls(DEFAULT_WIDTH, DEFAULT_HEIGHT, SEED);
+    }
+
+    public static int[][] walls(int width, int height, long seed) {
+        Random random = new Random(seed);
+        int[][] matrix = new int[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                boolean border = x == 0 || y == 0 || x == width - 1 || y == height - 1;
+                boolean start = x <= 3 && y <= 3;
+                if (border || (!start && random.nextDouble() < WALL_DENSITY)) {
+                    matrix[y][x] = 1;
+                }
+            }
+        }
+        return matrix;
+    }
+
+    // Marks count distinct open tiles as enemy spawns, never on the player start.
+    public static int[][] spawns(int[][] walls, int count, long seed) {
+        Random random = new Random(seed);
+        int height = walls.length;
+        int width = walls[0].length;
+        int[][] spawns = new int[height][width];
+        int placed = 0;
+        while (placed < count) {
+            int x = random.nextInt(width);
+            int y = random.nextInt(height);
+            if (walls[y][x] == 0 && spawns[y][x] == 0 && (x > 3 || y > 3)) {
+                spawns[y][x] = 1;
+                placed++;
+            }
+        }
+        return spawns;
+    }
+
+    /**
+     * Returns the packed index (y * width + x) of the open tile furthest
+     * from (x, y) by walking distance, which gives a search a long route
+     * that is guaranteed to exist.
+     */
+    public static int farthestTile(TileGrid grid, int x, int y) {
+        FlowField field = new FlowField(grid);
+        field.setGoal(x, y);
+        int farthest = grid.index(x, y);
+        int best = 0;
+        for (int row = 0; row < grid.getHeight(); row++) {
+            for (int col = 0; col < grid.getWidth(); col++) {
+                int distance = field.getDistance(col, row);
+                if (distance > best) {
+                    best = distance;
+                    farthest = grid.index(col, row);
+                }
+            }
+        }
+        return farthest;
+    }
+}
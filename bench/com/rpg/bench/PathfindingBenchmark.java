@@ -0,0 +1,68 @@
+package com.rpg.bench;
+
+import com.rpg.config.TileGrid;
+import com.rpg.util.Pathfinder;
+import com.rpg.util.PathfinderType;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One full search per operation, from the player start to the open tile
+ * furthest away from it, on the shipped level and on generated ones.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathfindingBenchmark {
+    @Param({"shipped", "256", "1024"})
+    public String map;
+
+    @Param({"BFS", "ASTAR", "JPS", "HPA"})
+    public PathfinderType pathfinder;
+
+    @Param({"false", "true"})
+    public boolean diagonal;
+
+    private TileGrid grid;
+    private Pathfinder search;
+    private int goalX;
+    private int goalY;
+    private int[] path;
+    private final int[] step = new int[2];
+
+    @Setup
+    public void setUp() {
+        grid = TileGrid.fromMatrix(MapGenerator.walls(map));
+        search = pathfinder.create(grid.getWidth(), grid.getHeight(), diagonal);
+        int goal = MapGenerator.farthestTile(grid, 1, 1);
+        goalX = goal % grid.getWidth();
+        goalY = goal / grid.getWidth();
+        path = new int[grid.getWidth() * grid.getHeight()];
+        // HPA builds its cluster graph on the first query; keep that out of the measurement.
+        search.findPath(grid, 1, 1, goalX, goalY, step);
+    }
+
+    @Benchmark
+    public int findPath() {
+        return search.findPath(grid, 1, 1, goalX, goalY, path);
+    }
+
+    // Only the first step is kept, the way PathfinderNavigator queries.
+    @Benchmark
+    public int findNextStep() {
+        return search.findPath(grid, 1, 1, goalX, goalY, step);
+    }
+}
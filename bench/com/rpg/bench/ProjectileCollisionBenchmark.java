@@ -0,0 +1,135 @@
+package com.rpg.bench;
+
+import com.rpg.config.GameConfig;
+import com.rpg.config.TileGrid;
+import com.rpg.entities.Enemy;
+import com.rpg.entities.ProjectileStore;
+import com.rpg.util.SpatialGrid;
+import com.rpg.util.TileCollision;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The per-projectile collision tests of a tick: a wall check against the
+ * tile grid, then, for projectiles still flying, a lookup of overlapping
+ * enemies in the spatial index. collide tests the end position only, as
+ * the simulation used to; sweep tests the whole move of a player bullet in
+ * a random direction, as the simulation does now. Nothing is damaged or
+ * removed, so every invocation sees the same state. One operation is one
+ * projectile.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectileCollisionBenchmark {
+    private static final int TILE_SIZE = GameConfig.TILE_SIZE;
+    private static final int PROJECTILES = 1024;
+    private static final double SIZE = ProjectileStore.SIZE;
+
+    @Param({"10", "100", "1000"})
+    public int enemyCount;
+
+    private TileGrid grid;
+    private SpatialGrid<Enemy> enemyIndex;
+    private final List<Enemy> nearby = new ArrayList<>();
+    private final double[] xs = new double[PROJECTILES];
+    private final double[] ys = new double[PROJECTILES];
+    private final double[] dxs = new double[PROJECTILES];
+    private final double[] dys = new double[PROJECTILES];
+
+    @Setup
+    public void setUp() {
+        int[][] walls = MapGenerator.defaultWalls();
+        grid = TileGrid.fromMatrix(walls);
+        double width = grid.getWidth() * TILE_SIZE;
+        double height = grid.getHeight() * TILE_SIZE;
+        enemyIndex = new SpatialGrid<>(width, height, GameConfig.SPATIAL_CELL_SIZE);
+        int[][] spawns = MapGenerator.spawns(walls, enemyCount, MapGenerator.SEED);
+        for (int row = 0; row < spawns.length; row++) {
+            for (int col = 0; col < spawns[row].length; col++) {
+                if (spawns[row][col] == 1) {
+                    Enemy enemy = new Enemy(col * TILE_SIZE, row * TILE_SIZE, GameConfig.ENEMY_HEALTH,
+                                            GameConfig.ENEMY_SPEED, GameConfig.ENEMY_SHOOT_INTERVAL,
+                                            GameConfig.ENEMY_BULLET_SPEED, GameConfig.ENEMY_BULLET_DAMAGE,
+                                            GameConfig.ENEMY_SHOOTING_RANGE);
+                    enemyIndex.insert(enemy, enemy.getX(), enemy.getY(), enemy.getWidth(), enemy.getHeight());
+                }
+            }
+        }
+        Random random = new Random(MapGenerator.SEED);
+        for (int i = 0; i < PROJECTILES; i++) {
+            xs[i] = random.nextDouble() * width;
+            ys[i] = random.nextDouble() * height;
+            double angle = random.nextDouble() * 2 * Math.PI;
+            dxs[i] = Math.cos(angle) * GameConfig.PLAYER_BULLET_SPEED;
+            dys[i] = Math.sin(angle) * GameConfig.PLAYER_BULLET_SPEED;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROJECTILES)
+    public int collide() {
+        int hits = 0;
+        for (int i = 0; i < PROJECTILES; i++) {
+            double x = xs[i];
+            double y = ys[i];
+            if (TileCollision.collides(grid, x, y, SIZE, SIZE, TILE_SIZE)) {
+                hits++;
+                continue;
+            }
+            nearby.clear();
+            enemyIndex.query(x, y, SIZE, SIZE, nearby);
+            for (int j = 0; j < nearby.size(); j++) {
+                Enemy enemy = nearby.get(j);
+                if (SpatialGrid.intersects(x, y, SIZE, SIZE,
+                                           enemy.getX(), enemy.getY(), enemy.getWidth(), enemy.getHeight())) {
+                    hits++;
+                    break;
+                }
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROJECTILES)
+    public int sweep() {
+        int hits = 0;
+        for (int i = 0; i < PROJECTILES; i++) {
+            double x = xs[i];
+            double y = ys[i];
+            double dx = dxs[i];
+            double dy = dys[i];
+            double limit = TileCollision.sweep(grid, x, y, SIZE, dx, dy, TILE_SIZE);
+            nearby.clear();
+            enemyIndex.query(Math.min(x, x + dx), Math.min(y, y + dy), SIZE + Math.abs(dx), SIZE + Math.abs(dy),
+                             nearby);
+            for (int j = 0; j < nearby.size(); j++) {
+                Enemy enemy = nearby.get(j);
+                limit = Math.min(limit, SpatialGrid.sweep(x, y, SIZE, SIZE, dx, dy, enemy.getX(), enemy.getY(),
+                                                          enemy.getWidth(), enemy.getHeight()));
+            }
+            if (limit != SpatialGrid.NO_HIT) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,191 @@
+package com.rpg.bench;
+
+import com.rpg.config.GameConfig;
+import com.rpg.entities.Player;
+import com.rpg.input.InputState;
+import com.rpg.simulation.LatencyHistogram;
+import com.rpg.simulation.Simulation;
+import com.rpg.simulation.TickProfiler;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Headless stress run for comparing builds at crowd sizes the shipped
+ * level never reaches. Enemies are dropped on random open tiles of the
+ * chosen level, several to a tile if need be, and every player walks a
+ * scripted pattern while firing; players that die respawn at once so the
+ * load stays constant. After a quarter as many unmeasured warmup ticks the
+ * given number of ticks runs flat out, then ticks per second, tick and phase
+ * latencies, peak heap and the collections during the measured ticks are
+ * printed. The level and spawn positions only depend on the arguments, so
+ * two builds see the same run. By default the level is the default
+ * generated one, or a larger square with about two open tiles per enemy
+ * when the crowd would not fit; crowds far beyond one enemy per open tile
+ * mostly measure the cost of enemies packed on top of each other.
+ *
+ * Usage: StressTest [enemies] [players] [ticks] [auto | shipped | edge]
+ */
+public class StressTest {
+    public static void main(String[] args) {
+        int enemyCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int playerCount = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 1_200;
+        int warmup = ticks / 4;
+        String level = args.length > 3 ? args[3] : "auto";
+
+        int[][] walls = "auto".equals(level) ? autoWalls(enemyCount) : MapGenerator.walls(level);
+        Simulation simulation = new Simulation(walls, new int[walls.length][walls[0].length]);
+        Random random = new Random(MapGenerator.SEED);
+        for (int i = 0; i < enemyCount; i++) {
+            int tile = randomOpenTile(walls, random);
+            simulation.spawnEnemy((tile % walls[0].length) * GameConfig.TILE_SIZE,
+                                  (tile / walls[0].length) * GameConfig.TILE_SIZE);
+        }
+        InputState[] inputs = new InputState[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            Player player = i == 0 ? simulation.getPlayer() : simulation.addPlayer();
+            if (i > 0) {
+                int tile = randomOpenTile(walls, random);
+                player.placeAt((tile % walls[0].length) * GameConfig.TILE_SIZE,
+                               (tile / walls[0].length) * GameConfig.TILE_SIZE);
+            }
+            inputs[i] = new InputState();
+        }
+
+        PrintStream report = System.out;
+        report.printf("%d enemies, %d players, %dx%d level, %d ticks after %d warmup%n", enemyCount, playerCount,
+                      walls[0].length, walls.length, ticks, warmup);
+        // The simulation logs every hit; keep that out of the timings and the report.
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        LatencyHistogram tickTimes = new LatencyHistogram();
+        long respawns = 0;
+        long gcCount = 0;
+        long gcTime = 0;
+        long start = 0;
+        long now = 0;
+        try {
+            for (int tick = -warmup; tick < ticks; tick++) {
+                if (tick == 0) {
+                    simulation.getProfiler().reset();
+                    resetPeakHeap();
+                    gcCount = -collectionCount();
+                    gcTime = -collectionTime();
+                    start = System.nanoTime();
+                }
+                List<Player> players = simulation.getPlayers();
+                for (int i = 0; i < playerCount; i++) {
+                    Player player = players.get(i);
+                    if (!player.isAlive()) {
+                        player.placeAt(GameConfig.PLAYER_START_X, GameConfig.PLAYER_START_Y);
+                        player.setHealth(GameConfig.PLAYER_HEALTH);
+                        respawns++;
+                    }
+                    script(inputs[i], player, i, tick + warmup);
+                }
+                now += GameConfig.OPTIMAL_TIME;
+                long tickStart = System.nanoTime();
+                simulation.update(now, inputs);
+                if (tick >= 0) {
+                    tickTimes.record(System.nanoTime() - tickStart);
+                }
+            }
+        } finally {
+            System.setOut(report);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        gcCount += collectionCount();
+        gcTime += collectionTime();
+
+        TickProfiler profiler = simulation.getProfiler();
+        report.print(LatencyHistogram.formatHeader());
+        for (TickProfiler.Phase phase : TickProfiler.Phase.values()) {
+            report.print(profiler.getHistogram(phase).formatRow(phase.getLabel()));
+        }
+        report.print(tickTimes.formatRow("tick"));
+        report.printf("%.0f ticks/s, p99 tick %.1f us%n", ticks / seconds, tickTimes.getPercentileMicros(99));
+        report.printf("peak heap %.1f MB, %d collections taking %d ms%n", peakHeap() / (1024.0 * 1024.0),
+                      gcCount, gcTime);
+        report.printf("end: %d enemies (+%d pooled), %d projectiles, %d player respawns%n",
+                      simulation.getEnemies().size(), simulation.getPooledEnemyCount(),
+                      simulation.getProjectiles().size(), respawns);
+    }
+
+    /**
+     * Each player walks its own square, a side every two seconds, turning
+     * the other way round for odd players, and fires a little ahead of
+     * itself in the direction it walks, reloading every ten seconds.
+     */
+    private static void script(InputState input, Player player, int index, int tick) {
+        int side = (tick / 120 + index) % 4;
+        if (index % 2 == 1) {
+            side = 3 - side;
+        }
+        int dx = side == 0 ? 1 : side == 2 ? -1 : 0;
+        int dy = side == 1 ? 1 : side == 3 ? -1 : 0;
+        input.setMovement(dy < 0, dy > 0, dx < 0, dx > 0);
+        input.setShooting(true, player.getX() + 200 * dx, player.getY() + 200 * dy);
+        if (tick % 600 == 599) {
+            input.requestReload();
+        }
+    }
+
+    // The default level, or a square one with room for about two open tiles per enemy.
+    private static int[][] autoWalls(int enemyCount) {
+        int edge = (int) Math.ceil(Math.sqrt(enemyCount * 2.5));
+        if (edge * edge <= MapGenerator.DEFAULT_WIDTH * MapGenerator.DEFAULT_HEIGHT) {
+            return MapGenerator.defaultWalls();
+        }
+        return MapGenerator.walls(edge, edge, MapGenerator.SEED);
+    }
+
+    private static int randomOpenTile(int[][] walls, Random random) {
+        while (true) {
+            int x = random.nextInt(walls[0].length);
+            int y = random.nextInt(walls.length);
+            if (walls[y][x] == 0 && (x > 3 || y > 3)) {
+                return y * walls[0].length + x;
+            }
+        }
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    // Sum of the heap pools' peaks, an upper bound on the heap in use at any one time.
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static long collectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long collectionTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, collector.getCollectionTime());
+        }
+        return time;
+    }
+}
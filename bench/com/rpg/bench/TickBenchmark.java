@@ -0,0 +1,66 @@
+package com.rpg.bench;
+
+import com.rpg.config.GameConfig;
+import com.rpg.entities.Player;
+import com.rpg.input.InputState;
+import com.rpg.simulation.Simulation;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One full headless simulation tick per operation, on the default
+ * generated level, with the player strafing and firing. A player that
+ * dies respawns at the start at once, so the enemies never lose their
+ * target and idle. The simulation is rebuilt for every iteration so
+ * enemies killed in one iteration do not thin out the next.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickBenchmark {
+    @Param({"10", "100", "1000"})
+    public int enemyCount;
+
+    private final InputState input = new InputState();
+    private Simulation simulation;
+    private long now;
+    private long ticks;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        int[][] walls = MapGenerator.defaultWalls();
+        simulation = new Simulation(walls, MapGenerator.spawns(walls, enemyCount, MapGenerator.SEED));
+        now = 0;
+        ticks = 0;
+        input.setShooting(true, walls[0].length * GameConfig.TILE_SIZE / 2.0, walls.length * GameConfig.TILE_SIZE / 2.0);
+    }
+
+    @Benchmark
+    public Simulation tick() {
+        Player player = simulation.getPlayer();
+        if (!player.isAlive()) {
+            player.placeAt(GameConfig.PLAYER_START_X, GameConfig.PLAYER_START_Y);
+            player.setHealth(GameConfig.PLAYER_HEALTH);
+        }
+        // Walk right and left again every couple of seconds of game time.
+        boolean right = (ticks++ / 120) % 2 == 0;
+        input.setMovement(false, false, !right, right);
+        now += GameConfig.OPTIMAL_TIME;
+        simulation.update(now, input);
+        return simulation;
+    }
+}
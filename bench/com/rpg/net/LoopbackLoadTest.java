@@ -0,0 +1,146 @@
+package com.rpg.net;
+
+import com.rpg.input.InputState;
+import com.rpg.simulation.LatencyHistogram;
+import com.rpg.simulation.Simulation;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a GameServer on a loopback port against a growing number of
+ * scripted clients (random walk, firing at whatever is in front of them)
+ * and reports, for each player count, the server tick time, the bandwidth
+ * per client in each direction and how often client interpolation found a
+ * snapshot on both sides of its render tick. The clients share one thread
+ * polling at the frame rate, the server runs on its own thread in real
+ * time, and each round uses a fresh level.
+ *
+ * Usage: LoopbackLoadTest [max players] [seconds per round]
+ */
+public class LoopbackLoadTest {
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+
+    public static void main(String[] args) throws Exception {
+        int maxPlayers = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 5;
+        PrintStream report = System.out;
+        report.printf("%7s %9s %9s %9s %10s %10s %9s %7s%n", "players", "tick p50", "tick p99", "sim p99",
+                      "down B/s", "up B/s", "snap B", "interp");
+        for (int players = 1; players <= maxPlayers; players *= 2) {
+            // The simulation logs hits and reloads; keep them out of the report.
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            try {
+                round(players, (long) (seconds * 1e9), report);
+            } finally {
+                System.setOut(report);
+            }
+        }
+    }
+
+    private static void round(int playerCount, long duration, PrintStream report) throws Exception {
+        GameServer server = new GameServer(Simulation.loadLevel(), 0);
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.run();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, "game-server");
+        serverThread.start();
+
+        Bot[] bots = new Bot[playerCount];
+        InetSocketAddress address = new InetSocketAddress("localhost", server.getPort());
+        for (int i = 0; i < playerCount; i++) {
+            bots[i] = new Bot(new NetClient(address), i);
+        }
+        long start = System.nanoTime();
+        long nextFrame = start;
+        while (System.nanoTime() - start < duration) {
+            long now = System.nanoTime();
+            for (Bot bot : bots) {
+                bot.frame(now);
+            }
+            nextFrame += FRAME_NANOS;
+            LockSupport.parkNanos(nextFrame - System.nanoTime());
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        server.stop();
+        serverThread.join();
+
+        long down = 0;
+        long up = 0;
+        long snapshots = 0;
+        long frames = 0;
+        long between = 0;
+        for (Bot bot : bots) {
+            down += bot.client.getBytesReceived();
+            up += bot.client.getBytesSent();
+            snapshots += bot.client.getSnapshots();
+            frames += bot.frames;
+            between += bot.between;
+            bot.client.close();
+        }
+        LatencyHistogram ticks = server.getTickTimes();
+        LatencyHistogram simulationTicks = server.getSimulation().getProfiler().getTickHistogram();
+        report.printf("%7d %9.1f %9.1f %9.1f %10.0f %10.0f %9.0f %6.1f%%%n", playerCount,
+                      ticks.getPercentileMicros(50), ticks.getPercentileMicros(99),
+                      simulationTicks.getPercentileMicros(99), down / elapsed / playerCount,
+                      up / elapsed / playerCount, snapshots == 0 ? 0.0 : (double) down / snapshots,
+                      frames == 0 ? 0.0 : 100.0 * between / frames);
+        server.close();
+    }
+
+    // One scripted client: walks in a random direction, changing it now and then, and keeps firing ahead.
+    private static final class Bot implements ClientWorld.EntityVisitor {
+        private final NetClient client;
+        private final InputState input = new InputState();
+        private final Random random;
+        private final ClientWorld.EntityVisitor ignoreEntity = (id, x, y, health) -> { };
+        private final ClientWorld.ProjectileVisitor ignoreProjectile = (x, y, owner) -> { };
+        private double x;
+        private double y;
+        private int dirX;
+        private int dirY;
+        private long frames;
+        private long between;
+
+        Bot(NetClient client, int seed) {
+            this.client = client;
+            this.random = new Random(seed);
+        }
+
+        void frame(long now) throws IOException {
+            client.poll(now);
+            if (!client.getWorld().hasSnapshot()) {
+                return;
+            }
+            frames++;
+            if (client.getWorld().interpolate(client.getRenderTick(now), this, ignoreEntity, ignoreProjectile)) {
+                between++;
+            }
+            if (frames % 60 == 1) {
+                dirX = random.nextInt(3) - 1;
+                dirY = random.nextInt(3) - 1;
+            }
+            input.setMovement(dirY < 0, dirY > 0, dirX < 0, dirX > 0);
+            input.setShooting(true, x + 100 * dirX + 1, y + 100 * dirY);
+            if (frames % 600 == 0) {
+                input.requestReload();
+            }
+            client.sendInput(input);
+        }
+
+        // Tracks this bot's own player among the interpolated players.
+        @Override
+        public void visit(int id, double x, double y, double health) {
+            if (id == client.getPlayerId()) {
+                this.x = x;
+                this.y = y;
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.rpg.net;
+
+import com.rpg.config.GameConfig;
+import com.rpg.simulation.Simulation;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Sends broken frames to a GameServer over loopback and checks that each
+ * one only costs the sending client its connection: the server keeps
+ * ticking and a well-behaved client connected throughout keeps receiving
+ * snapshots. The server is ticked from this thread, so an exception that
+ * escaped a tick would end the test. Exits with status 1 on failure.
+ *
+ * Usage: MalformedFrameTest
+ */
+public class MalformedFrameTest {
+    private static final int MAX_WAIT_TICKS = 300;
+
+    private static GameServer server;
+    private static long now;
+
+    public static void main(String[] args) throws Exception {
+        boolean passed = true;
+        try (GameServer gameServer = new GameServer(Simulation.loadLevel(), 0)) {
+            server = gameServer;
+            InetSocketAddress address = new InetSocketAddress("localhost", server.getPort());
+            try (NetClient client = new NetClient(address)) {
+                if (!tickUntil(() -> server.getClientCount() == 1)) {
+                    System.out.println("FAIL well-behaved client was not accepted");
+                    System.exit(1);
+                }
+                // Length 1 announces an INPUT frame with no payload: decoding it runs off the end.
+                passed &= check(address, "truncated input", frame(1, Protocol.INPUT));
+                passed &= check(address, "input missing its aim", frame(2, Protocol.INPUT, 0));
+                passed &= check(address, "oversized frame", frame(Protocol.MAX_CLIENT_FRAME_BYTES + 1, Protocol.INPUT));
+                passed &= check(address, "huge frame", frame(Integer.MAX_VALUE, Protocol.INPUT));
+                passed &= check(address, "negative length", frame(-5, Protocol.INPUT));
+                passed &= check(address, "zero length", frame(0));
+                passed &= check(address, "overlong varint", frame(8, Protocol.INPUT, 0, -1, -1, -1, -1, -1, -1));
+
+                long before = client.getSnapshots();
+                tickUntil(() -> {
+                    client.poll(now);
+                    return client.getSnapshots() > before;
+                });
+                boolean alive = server.getClientCount() == 1 && client.getSnapshots() > before;
+                System.out.println((alive ? "ok   " : "FAIL ") + "well-behaved client still served");
+                passed &= alive;
+            }
+        }
+        System.out.println(passed ? "All checks passed" : "Some checks failed");
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    // Connects, sends the bytes and expects the server to drop this connection and only this one.
+    private static boolean check(InetSocketAddress address, String name, byte[] bytes) throws Exception {
+        try (SocketChannel channel = SocketChannel.open(address)) {
+            if (!tickUntil(() -> server.getClientCount() == 2)) {
+                System.out.println("FAIL " + name + ": not accepted");
+                return false;
+            }
+            channel.write(ByteBuffer.wrap(bytes));
+            boolean dropped = tickUntil(() -> server.getClientCount() == 1);
+            System.out.println((dropped ? "ok   " : "FAIL ") + name);
+            return dropped;
+        }
+    }
+
+    // A frame header with the given length field followed by the given bytes, however many that is.
+    private static byte[] frame(int length, int... bytes) {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + bytes.length);
+        buffer.putInt(length);
+        for (int b : bytes) {
+            buffer.put((byte) b);
+        }
+        return buffer.array();
+    }
+
+    private interface Condition {
+        boolean holds() throws IOException;
+    }
+
+    // Runs server ticks until the condition holds, giving up after MAX_WAIT_TICKS.
+    private static boolean tickUntil(Condition condition) throws IOException, InterruptedException {
+        for (int i = 0; i < MAX_WAIT_TICKS; i++) {
+            now += GameConfig.OPTIMAL_TIME;
+            server.tick(now);
+            if (condition.holds()) {
+                return true;
+            }
+            Thread.sleep(1);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,50 @@
+#!/bin/bash
+
+# Set the directories
+SRC_DIR="src"
+BENCH_DIR="bench"
+BUILD_DIR="build-bench"
+
+# Path to the JavaFX SDK lib and bin directories (adjust if necessary)
+JAVAFX_SDK="/home/lancelot/Desktop/zulu21.38.21-ca-fx-jdk21.0.5-linux_x64/lib"
+JAVAFX_BIN="/home/lancelot/Desktop/zulu21.38.21-ca-fx-jdk21.0.5-linux_x64/bin"
+
+# Directory holding the JMH jars: jmh-core, jmh-generator-annprocess, jopt-simple and commons-math3
+JMH_LIB="${JMH_LIB:-$HOME/jmh/lib}"
+JMH_CP=$(find "$JMH_LIB" -name "*.jar" | tr '\n' ':')
+
+# Create the build directory if it doesn't exist
+mkdir -p "$BUILD_DIR"
+
+echo "Compiling game and benchmark sources..."
+"$JAVAFX_BIN/javac" \
+  --module-path "$JAVAFX_SDK" \
+  --add-modules javafx.base,javafx.controls,javafx.fxml \
+  -cp "$JMH_CP" \
+  -processor org.openjdk.jmh.generators.BenchmarkProcessor \
+  -d "$BUILD_DIR" $(find "$SRC_DIR" "$BENCH_DIR" -name "*.java")
+
+if [ $? -ne 0 ]; then
+    echo "Compilation failed. Check the errors above."
+    exit 1
+fi
+
+# ./cbobench.sh stress [enemies] [players] [ticks] [level] runs the headless stress test instead of JMH
+if [ "$1" = "stress" ]; then
+    shift
+    echo "Running stress test..."
+    "$JAVAFX_BIN/java" \
+      --module-path "$JAVAFX_SDK" \
+      --add-modules javafx.base,javafx.controls,javafx.fxml \
+      -cp "$BUILD_DIR" \
+      com.rpg.bench.StressTest "$@"
+    exit $?
+fi
+
+# Extra arguments go to JMH, e.g. ./cbobench.sh TickBenchmark -p enemyCount=1000
+echo "Running benchmarks..."
+"$JAVAFX_BIN/java" \
+  --module-path "$JAVAFX_SDK" \
+  --add-modules javafx.base,javafx.controls,javafx.fxml \
+  -cp "$BUILD_DIR:$JMH_CP" \
+  org.openjdk.jmh.Main -prof gc "$@"
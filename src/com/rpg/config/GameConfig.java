@@ -1,19 +1,45 @@
 package com.rpg.config;
 
+import com.rpg.util.PathfinderType;
+
 public class GameConfig {
     //Game settings
     public static final double TARGET_FPS = 60.0;
     public static final long OPTIMAL_TIME = 1_000_000_000L / (long) TARGET_FPS;
-    //Window and World settings.
+    public static final int MAX_CATCH_UP_STEPS = 5;
+    //Window and World settings. The world is as large as the level's tile grid.
     public static final int WINDOW_WIDTH = 800;
     public static final int WINDOW_HEIGHT = 600;
     public static final int TILE_SIZE = 40;
-    public static final int WORLD_WIDTH = 2600;
-    public static final int WORLD_HEIGHT = 1200;
+    public static final int SPATIAL_CELL_SIZE = TILE_SIZE * 2;
+    public static final int RENDER_CHUNK_TILES = 16;
+    
+    //Level file settings. Without a map file the built-in matrices are used.
+    public static final String MAP_FILE = "maps/level1.rpgmap";
+    public static final int MAP_CHUNK_SIZE = 32;
+    public static final int MAP_STREAM_RADIUS = 2;
+    
+    //Input recording. Run the game with -Drpg.record=<file> to log every tick's input for com.rpg.simulation.Replay.
+    public static final String INPUT_RECORDING_FILE = System.getProperty("rpg.record", "");
+    
+    //Snapshot settings. F5 quick-saves the world to this file and F9 loads it back.
+    public static final String QUICK_SAVE_FILE = "saves/quicksave.rpgsave";
+    
+    //Network settings. Clients only receive what lies within the view distance of their own player.
+    public static final int SERVER_PORT = 7777;
+    public static final int SNAPSHOT_INTERVAL_TICKS = 2;
+    public static final double NET_VIEW_DISTANCE = 900.0;
+    public static final int NET_POSITION_SCALE = 8;
+    public static final int NET_INTERPOLATION_DELAY_TICKS = 6;
+    public static final int NET_MAX_QUEUED_BYTES = 256 * 1024;
+    public static final int NET_MAX_READ_BYTES = 4 * 1024;
     
     //Player settings.
     public static final double PLAYER_SPEED = 6.0;
     public static final double PLAYER_HEALTH = 100.0;
+    public static final double PLAYER_START_X = 50;
+    public static final double PLAYER_START_Y = 50;
+    public static final long PLAYER_INVINCIBLE_DURATION = 1_000_000_000L;
     
     //Enemy settings.
     public static final double ENEMY_HEALTH = 100.0;
@@ -22,6 +48,23 @@ public class GameConfig {
     public static final int ENEMY_RANGE = 160;
     public static final double ENEMY_DAMAGE = 0.5;
     
+    //Pathfinding settings.
+    public static final boolean ENEMY_FLOW_FIELD = true;
+    public static final PathfinderType PATHFINDER = PathfinderType.ASTAR;
+    public static final boolean DIAGONAL_MOVEMENT = false;
+    public static final int PATH_CACHE_SIZE = 4096;
+    
+    //Enemy AI threading. Enemy moves are planned in parallel once there are enough enemies to pay for it.
+    public static final int ENEMY_AI_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final int PARALLEL_AI_MIN_ENEMIES = 256;
+    public static final int PARALLEL_AI_BATCH = 64;
+    
+    //Enemy AI level of detail. Near covers the screen and the shooting range; beyond mid, enemies sleep.
+    public static final double AI_NEAR_DISTANCE = 640.0;
+    public static final double AI_MID_DISTANCE = 1600.0;
+    public static final int AI_MID_PERIOD = 4;
+    public static final int AI_FAR_CHECK_PERIOD = 32;
+    
     //Enemy shooting settings.
     public static final long ENEMY_SHOOT_INTERVAL = 1_000_000_000L;
     public static final double ENEMY_BULLET_SPEED = 5.0;
@@ -34,5 +77,11 @@ public class GameConfig {
     public static final double PLAYER_BULLET_DAMAGE = 20.0;
     public static final int PLAYER_AMMO_CAPACITY = 10;
     public static final double PLAYER_RELOAD_TIME = 2.0;
+    
+    //Projectile settings, shared by player and enemy bullets.
+    public static final int PROJECTILE_CAPACITY = 4096;
+    
+    //Profiler overlay settings. The overlay is toggled with F3 and shows the timings of the last refresh window.
+    public static final long PROFILER_REFRESH_INTERVAL = 500_000_000L;
 }
 
@@ -0,0 +1,130 @@
+package com.rpg.config;
+
+/**
+ * Keeps the chunks of one MapFile layer that lie near a focus tile resident
+ * in memory, paging them in from the mapping as the focus moves and dropping
+ * them again once they fall out of range. Only resident chunks cost heap,
+ * so memory use depends on the view radius, not on the level size.
+ */
+public class MapChunkCache {
+    public interface ChunkListener {
+        // Called after a chunk has been paged in; cells can be read with getCell.
+        void onChunkLoaded(int chunkX, int chunkY);
+    }
+
+    private final MapFile map;
+    private final int layer;
+    private final int radius;
+    private final byte[][] chunks;
+    private final int[] resident;
+    private int residentCount;
+    private int focusChunkX = Integer.MIN_VALUE;
+    private int focusChunkY = Integer.MIN_VALUE;
+    private ChunkListener listener;
+
+    // Metrics.
+    private long loads;
+    private long evictions;
+
+    /**
+     * @param radius chunks kept around the focus chunk in each direction;
+     *               chunks are only evicted beyond radius + 1 so a player
+     *               walking along a chunk border does not thrash
+     */
+    public MapChunkCache(MapFile map, int layer, int radius) {
+        this.map = map;
+        this.layer = layer;
+        this.radius = radius;
+        this.chunks = new byte[map.getChunkCols() * map.getChunkRows()][];
+        this.resident = new int[chunks.length];
+    }
+
+    public void setListener(ChunkListener listener) {
+        this.listener = listener;
+    }
+
+    // Pages in the chunks around the given tile; does nothing while the focus stays in the same chunk.
+    public void focus(int tileX, int tileY) {
+        int chunkX = Math.floorDiv(tileX, map.getChunkSize());
+        int chunkY = Math.floorDiv(tileY, map.getChunkSize());
+        if (chunkX == focusChunkX && chunkY == focusChunkY) {
+            return;
+        }
+        focusChunkX = chunkX;
+        focusChunkY = chunkY;
+        evictOutside(chunkX, chunkY, radius + 1);
+        for (int y = Math.max(0, chunkY - radius); y <= Math.min(map.getChunkRows() - 1, chunkY + radius); y++) {
+            for (int x = Math.max(0, chunkX - radius); x <= Math.min(map.getChunkCols() - 1, chunkX + radius); x++) {
+                load(x, y);
+            }
+        }
+    }
+
+    /**
+     * Reads a cell from its resident chunk, or straight from the mapping if
+     * the chunk is not resident.
+     */
+    public int getCell(int x, int y) {
+        if (x < 0 || y < 0 || x >= map.getWidth() || y >= map.getHeight()) {
+            return map.getCell(layer, x, y);
+        }
+        int size = map.getChunkSize();
+        byte[] chunk = chunks[(y / size) * map.getChunkCols() + x / size];
+        if (chunk == null) {
+            return map.getCell(layer, x, y);
+        }
+        return chunk[(y % size) * size + x % size];
+    }
+
+    public boolean isResident(int chunkX, int chunkY) {
+        return chunks[chunkY * map.getChunkCols() + chunkX] != null;
+    }
+
+    public int getResidentChunks() {
+        return residentCount;
+    }
+
+    public long getResidentBytes() {
+        return (long) residentCount * map.getChunkSize() * map.getChunkSize();
+    }
+
+    public long getLoads() {
+        return loads;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public MapFile getMap() {
+        return map;
+    }
+
+    private void load(int chunkX, int chunkY) {
+        int index = chunkY * map.getChunkCols() + chunkX;
+        if (chunks[index] != null) {
+            return;
+        }
+        byte[] chunk = new byte[map.getChunkSize() * map.getChunkSize()];
+        map.readChunk(layer, chunkX, chunkY, chunk);
+        chunks[index] = chunk;
+        resident[residentCount++] = index;
+        loads++;
+        if (listener != null) {
+            listener.onChunkLoaded(chunkX, chunkY);
+        }
+    }
+
+    private void evictOutside(int chunkX, int chunkY, int keepRadius) {
+        for (int i = residentCount - 1; i >= 0; i--) {
+            int index = resident[i];
+            int x = index % map.getChunkCols();
+            int y = index / map.getChunkCols();
+            if (Math.abs(x - chunkX) > keepRadius || Math.abs(y - chunkY) > keepRadius) {
+                chunks[index] = null;
+                resident[i] = resident[--residentCount];
+                evictions++;
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.rpg.config;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact binary level format, read through a memory-mapped file so opening
+ * even a very large level is instant and the OS only pages in what is read.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   int   magic        'RPGM'
+ *   short version      1
+ *   short layerCount   2 (TILES, SPAWNS)
+ *   int   width        in tiles
+ *   int   height       in tiles
+ *   int   chunkSize    chunk edge in tiles
+ *   ...   padding up to HEADER_SIZE
+ *   byte  cells[layer][chunkY][chunkX][chunkSize * chunkSize]
+ * </pre>
+ * Cells are stored chunk by chunk, so every chunk is one contiguous run of
+ * bytes; chunks on the right and bottom edges are padded with walls
+ * (TILES) or zeros (SPAWNS).
+ */
+public class MapFile {
+    public static final int TILES = 0;
+    public static final int SPAWNS = 1;
+
+    private static final int MAGIC = 0x5250474D;
+    private static final short VERSION = 1;
+    private static final short LAYER_COUNT = 2;
+    private static final int HEADER_SIZE = 32;
+
+    private final MappedByteBuffer buffer;
+    private final int width;
+    private final int height;
+    private final int chunkSize;
+    private final int chunkCols;
+    private final int chunkRows;
+
+    private MapFile(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a map file");
+        }
+        if (buffer.getShort(4) != VERSION || buffer.getShort(6) != LAYER_COUNT) {
+            throw new IOException("Unsupported map file version " + buffer.getShort(4));
+        }
+        this.width = buffer.getInt(8);
+        this.height = buffer.getInt(12);
+        this.chunkSize = buffer.getInt(16);
+        if (width <= 0 || height <= 0 || chunkSize <= 0) {
+            throw new IOException("Map file has a bad size: " + width + "x" + height + " in chunks of " + chunkSize);
+        }
+        this.chunkCols = chunks(width, chunkSize);
+        this.chunkRows = chunks(height, chunkSize);
+        long dataSize = dataSize(chunkCols, chunkRows, chunkSize);
+        if (dataSize > Integer.MAX_VALUE) {
+            throw new IOException("Map file of " + dataSize + " bytes does not fit in one mapping");
+        }
+        if (buffer.capacity() < dataSize) {
+            throw new IOException("Map file is truncated");
+        }
+    }
+
+    /**
+     * Maps the whole file read-only. The mapping outlives the channel, which
+     * is closed straight away. A single mapping limits files to 2 GB.
+     */
+    public static MapFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Map file of " + channel.size() + " bytes does not fit in one mapping");
+            }
+            return new MapFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes a level. Rows may be ragged and the two layers may differ in
+     * size; the level is as large as the biggest of them, missing tiles
+     * become walls and missing spawn cells stay empty.
+     */
+    public static void write(Path path, int[][] tiles, int[][] spawns, int chunkSize) throws IOException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1, was " + chunkSize);
+        }
+        int width = 0;
+        for (int[] row : tiles) {
+            width = Math.max(width, row.length);
+        }
+        for (int[] row : spawns) {
+            width = Math.max(width, row.length);
+        }
+        int height = Math.max(tiles.length, spawns.length);
+        int chunkCols = (width + chunkSize - 1) / chunkSize;
+        int chunkRows = (height + chunkSize - 1) / chunkSize;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putShort(VERSION).putShort(LAYER_COUNT)
+                  .putInt(width).putInt(height).putInt(chunkSize);
+            header.clear();
+            writeFully(channel, header);
+            ByteBuffer chunk = ByteBuffer.allocate(chunkSize * chunkSize);
+            int[][][] layers = {tiles, spawns};
+            for (int layer = 0; layer < layers.length; layer++) {
+                byte padding = (byte) (layer == TILES ? 1 : 0);
+                for (int chunkY = 0; chunkY < chunkRows; chunkY++) {
+                    for (int chunkX = 0; chunkX < chunkCols; chunkX++) {
+                        chunk.clear();
+                        for (int y = 0; y < chunkSize; y++) {
+                            for (int x = 0; x < chunkSize; x++) {
+                                int row = chunkY * chunkSize + y;
+                                int col = chunkX * chunkSize + x;
+                                int[][] cells = layers[layer];
+                                boolean inside = row < height && col < width
+                                        && row < cells.length && col < cells[row].length;
+                                chunk.put(inside ? (byte) cells[row][col] : padding);
+                            }
+                        }
+                        chunk.flip();
+                        writeFully(channel, chunk);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getChunkSize() { return chunkSize; }
+    public int getChunkCols() { return chunkCols; }
+    public int getChunkRows() { return chunkRows; }
+
+    // Reads one cell straight from the mapping. Cells outside the level read as walls / no spawn.
+    public int getCell(int layer, int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return layer == TILES ? 1 : 0;
+        }
+        int chunkX = x / chunkSize;
+        int chunkY = y / chunkSize;
+        return buffer.get(chunkOffset(layer, chunkX, chunkY) + (y % chunkSize) * chunkSize + x % chunkSize);
+    }
+
+    // Copies one chunk (chunkSize * chunkSize cells, row-major) of a layer into out.
+    public void readChunk(int layer, int chunkX, int chunkY, byte[] out) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(chunkOffset(layer, chunkX, chunkY));
+        view.get(out, 0, chunkSize * chunkSize);
+    }
+
+    /**
+     * Expands a whole layer into a matrix. Only sensible for levels small
+     * enough to hold as int[][]; large levels should be read per chunk.
+     */
+    public int[][] readLayer(int layer) {
+        int[][] matrix = new int[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                matrix[y][x] = getCell(layer, x, y);
+            }
+        }
+        return matrix;
+    }
+
+    private int chunkOffset(int layer, int chunkX, int chunkY) {
+        return HEADER_SIZE + ((layer * chunkRows + chunkY) * chunkCols + chunkX) * chunkSize * chunkSize;
+    }
+
+    // Chunks needed to cover length tiles, in long arithmetic so huge header values cannot overflow.
+    private static int chunks(int length, int chunkSize) {
+        return (int) (((long) length + chunkSize - 1) / chunkSize);
+    }
+
+    // Bytes of a file with this many chunks, or Long.MAX_VALUE if that does not even fit in a long.
+    private static long dataSize(int chunkCols, int chunkRows, int chunkSize) {
+        try {
+            long cells = Math.multiplyExact((long) chunkRows * chunkCols, (long) chunkSize * chunkSize);
+            return Math.addExact(HEADER_SIZE, Math.multiplyExact(LAYER_COUNT, cells));
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    // Exports the built-in level so it can be edited or used as a template: java com.rpg.config.MapFile out.rpgmap
+    public static void main(String[] args) throws IOException {
+        Path path = Paths.get(args.length > 0 ? args[0] : GameConfig.MAP_FILE);
+        write(path, new EnvironmentMatrix().getMatrix(), new EnemyMatrix().getMatrix(), GameConfig.MAP_CHUNK_SIZE);
+        System.out.println("Wrote " + path);
+    }
+}
@@ -0,0 +1,127 @@
+package com.rpg.config;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The level's walls as a bitset: one bit per tile in a long[], row-major,
+ * so tile (x, y) has the flat index y * width + x. A 10k x 10k level takes
+ * about 12 MB, and the shipped level fits in a few cache lines. Tiles
+ * outside the grid count as walls. Every change to a wall bumps a version
+ * counter, so caches built from the walls can tell when they are stale.
+ */
+public class TileGrid {
+    private final int width;
+    private final int height;
+    private final long[] bits;
+    private int version;
+
+    public TileGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.bits = new long[(int) (((long) width * height + 63) >>> 6)];
+    }
+
+    /**
+     * Builds a grid from a matrix where 1 marks a wall. Rows may be ragged;
+     * as in MapFile.write, the grid is as wide as the longest row and the
+     * missing cells of shorter rows become walls.
+     */
+    public static TileGrid fromMatrix(int[][] matrix) {
+        int width = 0;
+        for (int[] row : matrix) {
+            width = Math.max(width, row.length);
+        }
+        TileGrid grid = new TileGrid(width, matrix.length);
+        for (int y = 0; y < grid.height; y++) {
+            int[] row = matrix[y];
+            for (int x = 0; x < width; x++) {
+                if (x >= row.length || row[x] == 1) {
+                    grid.setWall(x, y, true);
+                }
+            }
+        }
+        return grid;
+    }
+
+    // Reads the tile layer of a level file chunk by chunk, without expanding it to a matrix first.
+    public static TileGrid fromMap(MapFile map) {
+        TileGrid grid = new TileGrid(map.getWidth(), map.getHeight());
+        int size = map.getChunkSize();
+        byte[] chunk = new byte[size * size];
+        for (int chunkY = 0; chunkY < map.getChunkRows(); chunkY++) {
+            for (int chunkX = 0; chunkX < map.getChunkCols(); chunkX++) {
+                map.readChunk(MapFile.TILES, chunkX, chunkY, chunk);
+                for (int y = 0; y < size; y++) {
+                    int row = chunkY * size + y;
+                    for (int x = 0; x < size; x++) {
+                        int col = chunkX * size + x;
+                        if (row < grid.height && col < grid.width && chunk[y * size + x] == 1) {
+                            grid.setWall(col, row, true);
+                        }
+                    }
+                }
+            }
+        }
+        return grid;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int index(int x, int y) {
+        return y * width + x;
+    }
+
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    public boolean isWall(int x, int y) {
+        return !contains(x, y) || isWall(y * width + x);
+    }
+
+    // Flat-index lookup without bounds checks, for callers that already know the tile is inside the grid.
+    public boolean isWall(int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public void setWall(int x, int y, boolean wall) {
+        int index = y * width + x;
+        if (isWall(index) == wall) {
+            return;
+        }
+        if (wall) {
+            bits[index >>> 6] |= 1L << index;
+        } else {
+            bits[index >>> 6] &= ~(1L << index);
+        }
+        version++;
+    }
+
+    // Bytes writeState needs.
+    public int getStateSize() {
+        return bits.length * Long.BYTES;
+    }
+
+    // Writes the walls of a grid of this size; the size itself is up to the caller.
+    public void writeState(ByteBuffer buffer) {
+        buffer.asLongBuffer().put(bits);
+        buffer.position(buffer.position() + bits.length * Long.BYTES);
+    }
+
+    // Replaces the walls with ones written by writeState for a grid of the same size.
+    public void readState(ByteBuffer buffer) {
+        buffer.asLongBuffer().get(bits);
+        buffer.position(buffer.position() + bits.length * Long.BYTES);
+        version++;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+}
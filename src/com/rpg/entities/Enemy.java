@@ -1,103 +1,228 @@
 package com.rpg.entities;
 
 import com.rpg.config.GameConfig;
-import com.rpg.util.BFSPathfinding;
-import javafx.scene.Group;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
+import com.rpg.config.TileGrid;
+import com.rpg.util.Navigator;
+import com.rpg.util.SpatialGrid;
+import com.rpg.util.TileCollision;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 public class Enemy extends GameObject {
     private static final double ENEMY_SIZE = GameConfig.ENEMY_SIZE;
     private static final int TILE_SIZE = GameConfig.TILE_SIZE;
     private static final int RANGE = GameConfig.ENEMY_RANGE;
+    public static final int STATE_BYTES = Integer.BYTES + GameObject.STATE_BYTES + Long.BYTES + 1 + Long.BYTES;
     
     private double enemySpeed;
     private boolean alive;
-    private Group worldGroup;
+    // Stable identity for clients of a server; assigned by the simulation on every spawn.
+    private int id;
+    
+    // Last navigator answer, reused until this enemy's tile, the goal tile or the walls change.
+    private int stepTile = -1;
+    private int stepGoal = -1;
+    private int stepVersion;
+    private int cachedStep = -1;
+    
+    // Level-of-detail state, owned by the AI scheduler.
+    private int aiTier;
+    private long lastAiTick = -1;
     
     // Shooting fields.
-    private long lastShotTimeEnemy = 0;
+    private long lastShotTimeEnemy = Long.MIN_VALUE / 2;
     private long enemyShootInterval;
     private double enemyBulletSpeed;
     private double enemyBulletDamage;
     private double shootingRange;
     
-    public Enemy(double x, double y, Group worldGroup,
+    public Enemy(double x, double y,
                  double health, double enemySpeed, long enemyShootInterval,
                  double enemyBulletSpeed, double enemyBulletDamage, double shootingRange) {
         super(x, y, ENEMY_SIZE, ENEMY_SIZE, health);
-        this.worldGroup = worldGroup;
         this.enemySpeed = enemySpeed;
         this.enemyShootInterval = enemyShootInterval;
         this.enemyBulletSpeed = enemyBulletSpeed;
         this.enemyBulletDamage = enemyBulletDamage;
         this.shootingRange = shootingRange;
         this.alive = true;
-      
-        if (worldGroup != null && sprite != null) {
-            worldGroup.getChildren().add(sprite);
-        }
     }
     
-    @Override
-    protected void createSprite() {
-        sprite = new Rectangle(width, height, Color.RED);
-        updateSpritePosition();
-    }
-    
-    public void update(double playerX, double playerY, int[][] envMatrix, List<Rectangle> enemyRectangles) {
-        if (!alive) return;
-        
-        List<int[]> path = BFSPathfinding.findPath(envMatrix, (int)(x / TILE_SIZE), (int)(y / TILE_SIZE),
-                                                   (int)(playerX / TILE_SIZE), (int)(playerY / TILE_SIZE));
-        if (Math.hypot(playerX - x, playerY - y) > RANGE && path.size() > 1) {
-            int[] nextTile = path.get(1);
-            double targetX = nextTile[0] * TILE_SIZE + TILE_SIZE / 2.0 - width / 2.0;
-            double targetY = nextTile[1] * TILE_SIZE + TILE_SIZE / 2.0 - height / 2.0;
+    // Brings a killed enemy back at a new position in its freshly constructed state, so a later spawn can reuse it.
+    public void respawn(double x, double y, double health) {
+        placeAt(x, y);
+        this.health = health;
+        this.alive = true;
+        stepTile = -1;
+        stepGoal = -1;
+        cachedStep = -1;
+        aiTier = 0;
+        lastAiTick = -1;
+        lastShotTimeEnemy = Long.MIN_VALUE / 2;
+    }
+    
+    /**
+     * Works out where this enemy moves this tick and writes it to
+     * next[2 * slot] and next[2 * slot + 1] without moving. Only the current
+     * positions of this and the other enemies are read, so every enemy can
+     * be planned at the same time and the results applied afterwards with
+     * moveTo, in any order. Other enemies are found through enemyIndex,
+     * which must hold every living enemy at its current position; nearby is
+     * a scratch list owned by the calling thread. An enemy that has not
+     * thought for a while covers the given number of ticks in one step.
+     */
+    public void planMove(double playerX, double playerY, Navigator navigator, TileGrid walls,
+                         SpatialGrid<Enemy> enemyIndex, List<Enemy> nearby, int ticks, double[] next, int slot) {
+        double nextX = x;
+        double nextY = y;
+        // Enemies already in range stand still and do not ask the navigator at all.
+        int nextTile = alive && Math.hypot(playerX - x, playerY - y) > RANGE
+                ? nextTile(playerX, playerY, navigator, walls) : -1;
+        if (nextTile >= 0) {
+            int cols = navigator.getColumns();
+            double targetX = (nextTile % cols) * TILE_SIZE + TILE_SIZE / 2.0 - width / 2.0;
+            double targetY = (nextTile / cols) * TILE_SIZE + TILE_SIZE / 2.0 - height / 2.0;
             double dx = targetX - x;
             double dy = targetY - y;
             double distance = Math.hypot(dx, dy);
             if (distance > 0) {
-                double step = Math.min(enemySpeed, distance);
+                double step = Math.min(enemySpeed * ticks, distance);
                 double newX = x + step * dx / distance;
                 double newY = y + step * dy / distance;
-                if (!collidesWithEnemies(newX, newY, enemyRectangles)) {
-                    x = newX;
-                    y = newY;
-                    updateSpritePosition();
+                // One lookup covering the current and the new box serves all three attempts below.
+                nearby.clear();
+                enemyIndex.query(Math.min(x, newX), Math.min(y, newY),
+                                 Math.abs(newX - x) + width, Math.abs(newY - y) + height, nearby);
+                // Slide along walls one axis at a time, like the player does.
+                if (canMoveTo(newX, newY, walls, nearby)) {
+                    nextX = newX;
+                    nextY = newY;
+                } else if (canMoveTo(newX, y, walls, nearby)) {
+                    nextX = newX;
+                } else if (canMoveTo(x, newY, walls, nearby)) {
+                    nextY = newY;
                 }
             }
         }
+        next[2 * slot] = nextX;
+        next[2 * slot + 1] = nextY;
+    }
+    
+    private int nextTile(double playerX, double playerY, Navigator navigator, TileGrid walls) {
+        int cols = navigator.getColumns();
+        int tile = (int)(y / TILE_SIZE) * cols + (int)(x / TILE_SIZE);
+        int goal = (int)(playerY / TILE_SIZE) * cols + (int)(playerX / TILE_SIZE);
+        if (tile != stepTile || goal != stepGoal || walls.getVersion() != stepVersion) {
+            stepTile = tile;
+            stepGoal = goal;
+            stepVersion = walls.getVersion();
+            cachedStep = navigator.nextStep((int)(x / TILE_SIZE), (int)(y / TILE_SIZE));
+        }
+        return cachedStep;
+    }
+    
+    public int getId() {
+        return id;
+    }
+    
+    public void setId(int id) {
+        this.id = id;
+    }
+    
+    public int getAiTier() {
+        return aiTier;
+    }
+    
+    public long getLastAiTick() {
+        return lastAiTick;
     }
     
-    private boolean collidesWithEnemies(double newX, double newY, List<Rectangle> enemyRectangles) {
-        Rectangle tempRect = new Rectangle(newX, newY, width, height);
-        for (Rectangle other : enemyRectangles) {
-            if (other == sprite) continue;
-            if (tempRect.getBoundsInParent().intersects(other.getBoundsInParent())) {
+    public void setAiState(int tier, long tick) {
+        this.aiTier = tier;
+        this.lastAiTick = tick;
+    }
+    
+    // Applies a position produced by planMove.
+    public void moveTo(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+    
+    private boolean canMoveTo(double newX, double newY, TileGrid walls, List<Enemy> nearby) {
+        return !TileCollision.collides(walls, newX, newY, width, height, TILE_SIZE)
+                && !collidesWithEnemies(newX, newY, nearby);
+    }
+    
+    /**
+     * Enemies that moved in the same tick may end up overlapping a little, so
+     * an enemy already overlapping another may still move if that takes it
+     * further away; otherwise the two would block each other for good.
+     */
+    private boolean collidesWithEnemies(double newX, double newY, List<Enemy> nearby) {
+        for (int i = 0; i < nearby.size(); i++) {
+            Enemy other = nearby.get(i);
+            if (other == this || !other.alive) continue;
+            if (SpatialGrid.intersects(newX, newY, width, height, other.x, other.y, other.width, other.height)
+                    && !separates(newX, newY, other)) {
                 return true;
             }
         }
         return false;
     }
     
-    public EnemyBullet tryShoot(double playerCenterX, double playerCenterY, long now) {
-        if (!alive) return null;
+    private boolean separates(double newX, double newY, Enemy other) {
+        if (!intersects(other)) {
+            return false;
+        }
+        double otherX = other.x + other.width / 2.0;
+        double otherY = other.y + other.height / 2.0;
+        double before = Math.hypot(x + width / 2.0 - otherX, y + height / 2.0 - otherY);
+        double after = Math.hypot(newX + width / 2.0 - otherX, newY + height / 2.0 - otherY);
+        return after > before;
+    }
+    
+    // Fires at the player if in range and off cooldown; returns whether a projectile was spawned.
+    public boolean tryShoot(ProjectileStore projectiles, double playerCenterX, double playerCenterY, long now) {
+        if (!alive) return false;
         double enemyCenterX = x + width / 2.0;
         double enemyCenterY = y + height / 2.0;
         double distance = Math.hypot(playerCenterX - enemyCenterX, playerCenterY - enemyCenterY);
         if (distance > shootingRange) {
-            return null;
+            return false;
         }
         if (now - lastShotTimeEnemy >= enemyShootInterval) {
+            if (projectiles.spawn(enemyCenterX, enemyCenterY, playerCenterX, playerCenterY,
+                                  enemyBulletSpeed, enemyBulletDamage, ProjectileStore.OWNER_ENEMY) < 0) {
+                return false;
+            }
             lastShotTimeEnemy = now;
-            return new EnemyBullet(enemyCenterX, enemyCenterY, playerCenterX, playerCenterY,
-                                   enemyBulletSpeed, enemyBulletDamage);
+            return true;
         }
-        return null;
+        return false;
+    }
+    
+    // The navigator cache is left out: it is rebuilt on the first move after a restore.
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        buffer.putInt(id);
+        super.writeState(buffer);
+        buffer.putLong(lastShotTimeEnemy).put((byte) aiTier).putLong(lastAiTick);
     }
     
+    @Override
+    public void readState(ByteBuffer buffer) {
+        id = buffer.getInt();
+        super.readState(buffer);
+        lastShotTimeEnemy = buffer.getLong();
+        aiTier = buffer.get();
+        lastAiTick = buffer.getLong();
+        alive = health > 0;
+        stepTile = -1;
+        stepGoal = -1;
+        cachedStep = -1;
+    }
+    
+    @Override
     public boolean isAlive() {
         return alive;
     }
@@ -107,7 +232,6 @@ public class Enemy extends GameObject {
         super.takeDamage(damage);
         if (health <= 0) {
             alive = false;
-            sprite.setVisible(false);
         }
     }
 }
@@ -1,37 +1,65 @@
 package com.rpg.entities;
 
-import javafx.scene.Node;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Circle;
-import javafx.scene.shape.Rectangle;
+import com.rpg.util.SpatialGrid;
+import java.nio.ByteBuffer;
 
+/**
+ * Base of every simulated object: a world-space box with health.
+ * Objects hold no JavaFX state; the game view reads them to place sprites.
+ */
 public abstract class GameObject {
+    // Bytes written by writeState: position, previous position and health.
+    public static final int STATE_BYTES = 5 * Double.BYTES;
+
     protected double x, y;
+    // Position at the start of the current tick, for render interpolation.
+    protected double previousX, previousY;
     protected double health;
     protected double width, height;
-    protected Node sprite;
 
     public GameObject(double x, double y, double width, double height, double health) {
         this.x = x;
         this.y = y;
+        this.previousX = x;
+        this.previousY = y;
         this.width = width;
         this.height = height;
         this.health = health;
-        createSprite();
-    }
-    
-    // Each subclass creates its own visual representation.
-    protected abstract void createSprite();
-
-    public Node getSprite() {
-        return sprite;
     }
 
     public double getX() { return x; }
     public double getY() { return y; }
+    public double getWidth() { return width; }
+    public double getHeight() { return height; }
     public double getHealth() { return health; }
     public void setHealth(double health) { this.health = health; }
 
+    // Moves the object without interpolating from its old position, e.g. when it is respawned.
+    public void placeAt(double x, double y) {
+        this.x = x;
+        this.y = y;
+        this.previousX = x;
+        this.previousY = y;
+    }
+
+    // Called at the start of every tick so the renderer can blend from here to the new position.
+    public void savePreviousPosition() {
+        previousX = x;
+        previousY = y;
+    }
+
+    public double getRenderX(double alpha) {
+        return previousX + (x - previousX) * alpha;
+    }
+
+    public double getRenderY(double alpha) {
+        return previousY + (y - previousY) * alpha;
+    }
+
+    public boolean isAlive() {
+        return health > 0;
+    }
+
     // Common method to apply damage.
     public void takeDamage(double damage) {
         health -= damage;
@@ -40,20 +68,21 @@ public abstract class GameObject {
         }
     }
 
-    /**
-     * Updates the sprite's position according to the object's x and y.
-     * If the sprite is a Rectangle, it sets its x and y.
-     * If it's a Circle, it sets its center (offset by its radius).
-     */
-    public void updateSpritePosition() {
-        if (sprite instanceof Rectangle) {
-            ((Rectangle) sprite).setX(x);
-            ((Rectangle) sprite).setY(y);
-        } else if (sprite instanceof Circle) {
-            double radius = ((Circle) sprite).getRadius();
-            ((Circle) sprite).setCenterX(x + radius);
-            ((Circle) sprite).setCenterY(y + radius);
-        }
+    // Appends the state a snapshot needs to restore this object.
+    public void writeState(ByteBuffer buffer) {
+        buffer.putDouble(x).putDouble(y).putDouble(previousX).putDouble(previousY).putDouble(health);
+    }
+
+    // Restores what writeState wrote.
+    public void readState(ByteBuffer buffer) {
+        x = buffer.getDouble();
+        y = buffer.getDouble();
+        previousX = buffer.getDouble();
+        previousY = buffer.getDouble();
+        health = buffer.getDouble();
     }
-}
 
+    public boolean intersects(GameObject other) {
+        return SpatialGrid.intersects(x, y, width, height, other.x, other.y, other.width, other.height);
+    }
+}
@@ -1,24 +1,74 @@
 package com.rpg.entities;
 
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
+import com.rpg.config.GameConfig;
+import java.nio.ByteBuffer;
 
 public class Player extends GameObject {
-    public Player(double x, double y, double width, double height, double health) {
+    private static final long INVINCIBLE_DURATION = GameConfig.PLAYER_INVINCIBLE_DURATION;
+    public static final int STATE_BYTES = GameObject.STATE_BYTES + 1 + Long.BYTES + Weapon.STATE_BYTES;
+
+    private final Weapon weapon;
+    private boolean invincible = false;
+    private long invincibleStartTime = 0;
+
+    public Player(double x, double y, double width, double height, double health, Weapon weapon) {
         super(x, y, width, height, health);
+        this.weapon = weapon;
     }
     
-    @Override
-    protected void createSprite() {
-        sprite = new Rectangle(width, height, Color.BLUE);
-        updateSpritePosition();
-    }
-    
-    // Example move method.
     public void move(double dx, double dy) {
         x += dx;
         y += dy;
-        updateSpritePosition();
     }
-}
 
+    public void setPosition(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    public Weapon getWeapon() {
+        return weapon;
+    }
+
+    public boolean isInvincible() {
+        return invincible;
+    }
+
+    /**
+     * Applies damage unless the player is still invincible from the last hit,
+     * then starts a new invincibility window.
+     *
+     * @return true if the hit landed
+     */
+    public boolean hit(double damage, long now) {
+        if (invincible) {
+            return false;
+        }
+        takeDamage(damage);
+        invincible = true;
+        invincibleStartTime = now;
+        return true;
+    }
+
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.put((byte) (invincible ? 1 : 0)).putLong(invincibleStartTime);
+        weapon.writeState(buffer);
+    }
+
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        invincible = buffer.get() != 0;
+        invincibleStartTime = buffer.getLong();
+        weapon.readState(buffer);
+    }
+
+    public void updateInvincibility(long now) {
+        if (invincible && now - invincibleStartTime >= INVINCIBLE_DURATION) {
+            invincible = false;
+            System.out.println("Player is no longer invincible.");
+        }
+    }
+}
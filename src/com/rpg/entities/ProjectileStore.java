@@ -0,0 +1,206 @@
+package com.rpg.entities;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Every live projectile, player and enemy alike, kept as parallel primitive
+ * arrays (struct of arrays) instead of one object per bullet. integrate()
+ * advances them all in a single branch-free loop over contiguous arrays,
+ * which the JIT can unroll and vectorise; collision is a separate pass in
+ * the simulation. Projectiles are removed by swapping the last one into the
+ * freed slot, so live entries always occupy [0, size()).
+ */
+public class ProjectileStore {
+    public static final int OWNER_PLAYER = 0;
+    public static final int OWNER_ENEMY = 1;
+    // Projectiles are 10x10 boxes, positioned by their top-left corner.
+    public static final double SIZE = 10;
+    // Bytes writeState takes per projectile.
+    public static final int STATE_BYTES = 8 * Double.BYTES + 1;
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] dx;
+    private final double[] dy;
+    private final double[] speed;
+    private final double[] damage;
+    private final int[] owner;
+    // Positions at the start of the current tick, for render interpolation.
+    private final double[] previousX;
+    private final double[] previousY;
+    private int count;
+
+    // Metrics.
+    private long spawned;
+    private long removed;
+    private long rejected;
+    private int peak;
+
+    public ProjectileStore(int capacity) {
+        x = new double[capacity];
+        y = new double[capacity];
+        dx = new double[capacity];
+        dy = new double[capacity];
+        speed = new double[capacity];
+        damage = new double[capacity];
+        owner = new int[capacity];
+        previousX = new double[capacity];
+        previousY = new double[capacity];
+    }
+
+    /**
+     * Adds a projectile at (startX, startY) heading towards the target.
+     *
+     * @return its slot, or -1 (counted as a rejection) if the store is full
+     */
+    public int spawn(double startX, double startY, double targetX, double targetY,
+                     double projectileSpeed, double projectileDamage, int projectileOwner) {
+        if (count == x.length) {
+            rejected++;
+            return -1;
+        }
+        int i = count++;
+        double deltaX = targetX - startX;
+        double deltaY = targetY - startY;
+        double length = Math.hypot(deltaX, deltaY);
+        if (length == 0) {
+            dx[i] = 1;
+            dy[i] = 0;
+        } else {
+            dx[i] = deltaX / length;
+            dy[i] = deltaY / length;
+        }
+        x[i] = startX;
+        y[i] = startY;
+        previousX[i] = startX;
+        previousY[i] = startY;
+        speed[i] = projectileSpeed;
+        damage[i] = projectileDamage;
+        owner[i] = projectileOwner;
+        spawned++;
+        if (count > peak) {
+            peak = count;
+        }
+        return i;
+    }
+
+    public void savePreviousPositions() {
+        System.arraycopy(x, 0, previousX, 0, count);
+        System.arraycopy(y, 0, previousY, 0, count);
+    }
+
+    public void integrate() {
+        int n = count;
+        double[] x = this.x;
+        double[] y = this.y;
+        double[] dx = this.dx;
+        double[] dy = this.dy;
+        double[] speed = this.speed;
+        for (int i = 0; i < n; i++) {
+            x[i] += dx[i] * speed[i];
+            y[i] += dy[i] * speed[i];
+        }
+    }
+
+    // Removes the projectile in slot i by moving the last live projectile into it.
+    public void remove(int i) {
+        int last = --count;
+        x[i] = x[last];
+        y[i] = y[last];
+        dx[i] = dx[last];
+        dy[i] = dy[last];
+        speed[i] = speed[last];
+        damage[i] = damage[last];
+        owner[i] = owner[last];
+        previousX[i] = previousX[last];
+        previousY[i] = previousY[last];
+        removed++;
+    }
+
+    public void clear() {
+        removed += count;
+        count = 0;
+    }
+
+    // Bytes writeState needs for the live projectiles.
+    public int getStateSize() {
+        return Integer.BYTES + count * STATE_BYTES;
+    }
+
+    // Writes the live projectiles field by field, each field as one bulk copy.
+    public void writeState(ByteBuffer buffer) {
+        buffer.putInt(count);
+        putDoubles(buffer, x);
+        putDoubles(buffer, y);
+        putDoubles(buffer, dx);
+        putDoubles(buffer, dy);
+        putDoubles(buffer, speed);
+        putDoubles(buffer, damage);
+        putDoubles(buffer, previousX);
+        putDoubles(buffer, previousY);
+        for (int i = 0; i < count; i++) {
+            buffer.put((byte) owner[i]);
+        }
+    }
+
+    // Replaces the live projectiles with the ones writeState wrote.
+    public void readState(ByteBuffer buffer) {
+        int saved = buffer.getInt();
+        if (saved < 0 || saved > x.length) {
+            throw new IllegalArgumentException("Snapshot holds " + saved + " projectiles, capacity is " + x.length);
+        }
+        clear();
+        count = saved;
+        getDoubles(buffer, x);
+        getDoubles(buffer, y);
+        getDoubles(buffer, dx);
+        getDoubles(buffer, dy);
+        getDoubles(buffer, speed);
+        getDoubles(buffer, damage);
+        getDoubles(buffer, previousX);
+        getDoubles(buffer, previousY);
+        for (int i = 0; i < count; i++) {
+            owner[i] = buffer.get();
+        }
+        peak = Math.max(peak, count);
+    }
+
+    private void putDoubles(ByteBuffer buffer, double[] values) {
+        buffer.asDoubleBuffer().put(values, 0, count);
+        buffer.position(buffer.position() + count * Double.BYTES);
+    }
+
+    private void getDoubles(ByteBuffer buffer, double[] values) {
+        buffer.asDoubleBuffer().get(values, 0, count);
+        buffer.position(buffer.position() + count * Double.BYTES);
+    }
+
+    public int size() { return count; }
+    public int getCapacity() { return x.length; }
+
+    public double getX(int i) { return x[i]; }
+    public double getY(int i) { return y[i]; }
+    // Position at the start of the tick, where the last move began.
+    public double getPreviousX(int i) { return previousX[i]; }
+    public double getPreviousY(int i) { return previousY[i]; }
+    public double getDamage(int i) { return damage[i]; }
+    public int getOwner(int i) { return owner[i]; }
+    // Distance travelled per tick along each axis.
+    public double getVelocityX(int i) { return dx[i] * speed[i]; }
+    public double getVelocityY(int i) { return dy[i] * speed[i]; }
+
+    public double getRenderX(int i, double alpha) {
+        return previousX[i] + (x[i] - previousX[i]) * alpha;
+    }
+
+    public double getRenderY(int i, double alpha) {
+        return previousY[i] + (y[i] - previousY[i]) * alpha;
+    }
+
+    public long getSpawned() { return spawned; }
+    public long getRemoved() { return removed; }
+    // Spawns refused because the store was full.
+    public long getRejected() { return rejected; }
+    // Highest number of live projectiles seen at once.
+    public int getPeak() { return peak; }
+}
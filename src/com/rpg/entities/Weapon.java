@@ -1,6 +1,11 @@
 package com.rpg.entities;
 
+import java.nio.ByteBuffer;
+
 public class Weapon {
+    // Bytes written by writeState: ammo and the time of the last shot.
+    public static final int STATE_BYTES = Integer.BYTES + Long.BYTES;
+
     private double fireRate;
     private double damage;
     private int magazineSize;
@@ -14,19 +19,29 @@ public class Weapon {
         this.magazineSize = magazineSize;
         this.currentAmmo = magazineSize;
         this.bulletSpeed = bulletSpeed;
-        this.lastShotTime = 0;
+        // Far enough in the past that the first shot is never throttled, whatever the clock's origin.
+        this.lastShotTime = Long.MIN_VALUE / 2;
     }
-    public Bullet shoot(double startX, double startY, double targetX, double targetY, long currentTime) {
+    /**
+     * Spawns a player projectile, or returns false if the weapon is cooling
+     * down, out of ammo, or the projectile store is full.
+     */
+    public boolean shoot(ProjectileStore projectiles, double startX, double startY,
+                         double targetX, double targetY, long currentTime) {
         long nanosPerShot = (long) (1_000_000_000 / fireRate);
         if (currentTime - lastShotTime < nanosPerShot) {
-            return null;
+            return false;
         }
         if (currentAmmo <= 0) {
-            return null;
+            return false;
+        }
+        if (projectiles.spawn(startX, startY, targetX, targetY, bulletSpeed, damage,
+                              ProjectileStore.OWNER_PLAYER) < 0) {
+            return false;
         }
         lastShotTime = currentTime;
         currentAmmo--;
-        return new Bullet(startX, startY, targetX, targetY, bulletSpeed, damage);
+        return true;
     }
 
     public int getCurrentAmmo() {
@@ -36,5 +51,15 @@ public class Weapon {
     public void reload() {
         currentAmmo = magazineSize;
     }
+
+    // Only the changing state is saved; the weapon's stats come from GameConfig.
+    public void writeState(ByteBuffer buffer) {
+        buffer.putInt(currentAmmo).putLong(lastShotTime);
+    }
+
+    public void readState(ByteBuffer buffer) {
+        currentAmmo = buffer.getInt();
+        lastShotTime = buffer.getLong();
+    }
 }
 
@@ -7,9 +7,11 @@ import javafx.scene.layout.Pane;
 import javafx.stage.Stage;
 
 public class Main extends Application {
+    private RPGGame game;
+
     @Override
     public void start(Stage primaryStage) {
-        RPGGame game = new RPGGame();
+        game = new RPGGame();
         Pane root = game.initialize();
         Scene scene = new Scene(root);
         game.addInputHandlers(scene);
@@ -21,6 +23,11 @@ public class Main extends Application {
         game.startGameLoop();
     }
 
+    @Override
+    public void stop() {
+        game.stop();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -0,0 +1,75 @@
+package com.rpg.game;
+
+import com.rpg.config.GameConfig;
+import com.rpg.simulation.AiScheduler;
+import com.rpg.simulation.LatencyHistogram;
+import com.rpg.simulation.Simulation;
+import com.rpg.simulation.TickProfiler;
+import com.rpg.util.PathCache;
+import com.rpg.util.PathfinderNavigator;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+
+/**
+ * Debug overlay listing p50 / p99 / max of every simulation phase, the
+ * whole tick and the render pass, together with entity and projectile
+ * counts, the AI level-of-detail tiers and, when enemies use a Pathfinder,
+ * the path cache counters. The text is rebuilt once per refresh interval
+ * from the histograms collected since the previous refresh, which are then
+ * reset; while hidden it costs nothing.
+ */
+class ProfilerOverlay {
+    private final Label label = new Label();
+    private final StringBuilder text = new StringBuilder(1024);
+    private boolean visible;
+    private boolean refreshed;
+    private long lastRefresh;
+
+    ProfilerOverlay() {
+        label.setStyle("-fx-background-color: rgba(0, 0, 0, 0.7); -fx-text-fill: white;"
+                + " -fx-font-family: monospace; -fx-font-size: 11px; -fx-padding: 6;");
+        label.setLayoutX(8);
+        label.setLayoutY(8);
+        label.setMouseTransparent(true);
+        label.setVisible(false);
+    }
+
+    Node getNode() {
+        return label;
+    }
+
+    void toggle() {
+        visible = !visible;
+        label.setVisible(visible);
+        refreshed = false;
+    }
+
+    void update(long now, Simulation simulation, LatencyHistogram renderTimes) {
+        if (!visible || (refreshed && now - lastRefresh < GameConfig.PROFILER_REFRESH_INTERVAL)) {
+            return;
+        }
+        refreshed = true;
+        lastRefresh = now;
+        TickProfiler profiler = simulation.getProfiler();
+        text.setLength(0);
+        text.append(LatencyHistogram.formatHeader());
+        for (TickProfiler.Phase phase : TickProfiler.Phase.values()) {
+            text.append(profiler.getHistogram(phase).formatRow(phase.getLabel()));
+        }
+        text.append(profiler.getTickHistogram().formatRow("tick"));
+        text.append(renderTimes.formatRow("render"));
+        text.append(String.format("ticks %d  enemies %d (+%d pooled)  projectiles %d",
+                                  profiler.getTickHistogram().getCount(), simulation.getEnemies().size(),
+                                  simulation.getPooledEnemyCount(), simulation.getProjectiles().size()));
+        AiScheduler ai = simulation.getAiScheduler();
+        text.append(String.format("%nai near %d  mid %d  asleep %d  thinking %d", ai.getCount(AiScheduler.NEAR),
+                                  ai.getCount(AiScheduler.MID), ai.getCount(AiScheduler.FAR), ai.getActiveCount()));
+        if (simulation.getNavigator() instanceof PathfinderNavigator) {
+            PathCache cache = ((PathfinderNavigator) simulation.getNavigator()).getCache();
+            text.append(String.format("%npath cache %d hits / %d misses", cache.getHits(), cache.getMisses()));
+        }
+        label.setText(text.toString());
+        profiler.reset();
+        renderTimes.reset();
+    }
+}
@@ -0,0 +1,51 @@
+package com.rpg.game;
+
+import com.rpg.entities.ProjectileStore;
+import javafx.scene.Group;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+
+/**
+ * Sprites for the ProjectileStore: one Circle per store slot, all attached
+ * once up front. Each frame the first size() circles are shown at the live
+ * projectiles' positions and the rest stay hidden, so firing never touches
+ * the scene graph's child list.
+ */
+class ProjectileLayer {
+    private static final double RADIUS = ProjectileStore.SIZE / 2;
+
+    private final Circle[] sprites;
+    private final int[] owners;
+    private int shown;
+
+    ProjectileLayer(Group group, int capacity) {
+        sprites = new Circle[capacity];
+        owners = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            sprites[i] = new Circle(RADIUS, Color.YELLOW);
+            sprites[i].setVisible(false);
+            owners[i] = ProjectileStore.OWNER_PLAYER;
+        }
+        group.getChildren().addAll(sprites);
+    }
+
+    void sync(ProjectileStore projectiles, double alpha) {
+        int size = projectiles.size();
+        for (int i = 0; i < size; i++) {
+            Circle sprite = sprites[i];
+            int owner = projectiles.getOwner(i);
+            // Slots are reused by either side, so recolour only when the owner changes.
+            if (owner != owners[i]) {
+                sprite.setFill(owner == ProjectileStore.OWNER_PLAYER ? Color.YELLOW : Color.DARKRED);
+                owners[i] = owner;
+            }
+            sprite.setCenterX(projectiles.getRenderX(i, alpha) + RADIUS);
+            sprite.setCenterY(projectiles.getRenderY(i, alpha) + RADIUS);
+            sprite.setVisible(true);
+        }
+        for (int i = size; i < shown; i++) {
+            sprites[i].setVisible(false);
+        }
+        shown = size;
+    }
+}
@@ -0,0 +1,79 @@
+package com.rpg.game;
+
+import com.rpg.entities.GameObject;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Rectangle;
+
+/**
+ * Keeps one JavaFX node per simulated object of a kind. Each frame, sync
+ * gives new objects a node, moves existing ones to their object's position
+ * and parks the nodes of objects that left the simulation: they are hidden
+ * but stay in the group, and the next new object takes one over instead of
+ * a node being created and attached.
+ */
+class SpriteLayer {
+    private final Group group;
+    private final Supplier<Node> factory;
+    private final Map<GameObject, Node> sprites = new IdentityHashMap<>();
+    private final Map<GameObject, Boolean> present = new IdentityHashMap<>();
+    private final List<Node> parked = new ArrayList<>();
+
+    SpriteLayer(Group group, Supplier<Node> factory) {
+        this.group = group;
+        this.factory = factory;
+    }
+
+    // alpha blends each object between its previous and current tick position.
+    void sync(List<? extends GameObject> objects, double alpha) {
+        for (int i = 0; i < objects.size(); i++) {
+            GameObject object = objects.get(i);
+            Node sprite = sprites.get(object);
+            if (sprite == null) {
+                if (parked.isEmpty()) {
+                    sprite = factory.get();
+                    group.getChildren().add(sprite);
+                } else {
+                    sprite = parked.remove(parked.size() - 1);
+                }
+                sprites.put(object, sprite);
+            }
+            sprite.setVisible(object.isAlive());
+            place(sprite, object.getRenderX(alpha), object.getRenderY(alpha));
+            present.put(object, Boolean.TRUE);
+        }
+        if (sprites.size() > present.size()) {
+            for (Iterator<Map.Entry<GameObject, Node>> iterator = sprites.entrySet().iterator(); iterator.hasNext(); ) {
+                Map.Entry<GameObject, Node> entry = iterator.next();
+                if (!present.containsKey(entry.getKey())) {
+                    entry.getValue().setVisible(false);
+                    parked.add(entry.getValue());
+                    iterator.remove();
+                }
+            }
+        }
+        present.clear();
+    }
+
+    /**
+     * Places a Rectangle by its top-left corner and a Circle by its centre,
+     * so both line up with the object's box.
+     */
+    static void place(Node sprite, double x, double y) {
+        if (sprite instanceof Rectangle) {
+            ((Rectangle) sprite).setX(x);
+            ((Rectangle) sprite).setY(y);
+        } else if (sprite instanceof Circle) {
+            double radius = ((Circle) sprite).getRadius();
+            ((Circle) sprite).setCenterX(x + radius);
+            ((Circle) sprite).setCenterY(y + radius);
+        }
+    }
+}
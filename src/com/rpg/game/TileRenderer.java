@@ -0,0 +1,113 @@
+package com.rpg.game;
+
+import com.rpg.config.GameConfig;
+import com.rpg.config.TileGrid;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Draws the static tile map onto a single window-sized Canvas instead of
+ * keeping one Rectangle node per tile. The map is split into square chunks
+ * that are rasterised into images the first time they come into view; each
+ * frame only the chunks intersecting the camera are drawn, and chunks that
+ * scroll well out of view are dropped again, so both node count and memory
+ * stay flat however large the map grows.
+ */
+class TileRenderer {
+    private static final int TILE_SIZE = GameConfig.TILE_SIZE;
+    private static final int CHUNK_TILES = GameConfig.RENDER_CHUNK_TILES;
+    private static final int CHUNK_PIXELS = CHUNK_TILES * TILE_SIZE;
+    private static final int FLOOR_ARGB = 0xFF90EE90;
+    private static final int WALL_ARGB = 0xFF808080;
+
+    private final TileGrid walls;
+    private final Canvas canvas;
+    private final GraphicsContext graphics;
+    private final int chunkCols;
+    private final int chunkRows;
+    private final WritableImage[] chunks;
+    private final List<Integer> residentChunks = new ArrayList<>();
+    private final int[] tilePixels = new int[TILE_SIZE * TILE_SIZE];
+
+    TileRenderer(TileGrid walls, double width, double height) {
+        this.walls = walls;
+        this.canvas = new Canvas(width, height);
+        this.graphics = canvas.getGraphicsContext2D();
+        this.chunkCols = (walls.getWidth() + CHUNK_TILES - 1) / CHUNK_TILES;
+        this.chunkRows = (walls.getHeight() + CHUNK_TILES - 1) / CHUNK_TILES;
+        this.chunks = new WritableImage[chunkCols * chunkRows];
+        canvas.setMouseTransparent(true);
+    }
+
+    Canvas getCanvas() {
+        return canvas;
+    }
+
+    /**
+     * Redraws the visible part of the map for a camera whose world origin
+     * sits at (offsetX, offsetY) on screen.
+     */
+    void render(double offsetX, double offsetY) {
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        graphics.clearRect(0, 0, width, height);
+        int minChunkX = Math.max(0, (int) Math.floor(-offsetX / CHUNK_PIXELS));
+        int minChunkY = Math.max(0, (int) Math.floor(-offsetY / CHUNK_PIXELS));
+        int maxChunkX = Math.min(chunkCols - 1, (int) Math.floor((width - offsetX) / CHUNK_PIXELS));
+        int maxChunkY = Math.min(chunkRows - 1, (int) Math.floor((height - offsetY) / CHUNK_PIXELS));
+        for (int chunkY = minChunkY; chunkY <= maxChunkY; chunkY++) {
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                graphics.drawImage(chunk(chunkX, chunkY),
+                                   chunkX * CHUNK_PIXELS + offsetX, chunkY * CHUNK_PIXELS + offsetY);
+            }
+        }
+        evictDistantChunks(minChunkX - 1, minChunkY - 1, maxChunkX + 1, maxChunkY + 1);
+    }
+
+    private WritableImage chunk(int chunkX, int chunkY) {
+        int index = chunkY * chunkCols + chunkX;
+        if (chunks[index] == null) {
+            chunks[index] = rasterise(chunkX, chunkY);
+            residentChunks.add(index);
+        }
+        return chunks[index];
+    }
+
+    private WritableImage rasterise(int chunkX, int chunkY) {
+        WritableImage image = new WritableImage(CHUNK_PIXELS, CHUNK_PIXELS);
+        PixelFormat<IntBuffer> format = PixelFormat.getIntArgbInstance();
+        for (int tileY = 0; tileY < CHUNK_TILES; tileY++) {
+            int row = chunkY * CHUNK_TILES + tileY;
+            for (int tileX = 0; tileX < CHUNK_TILES; tileX++) {
+                int col = chunkX * CHUNK_TILES + tileX;
+                // Cells past the edge of the map stay transparent, like the empty pane did before.
+                if (!walls.contains(col, row)) {
+                    continue;
+                }
+                Arrays.fill(tilePixels, walls.isWall(walls.index(col, row)) ? WALL_ARGB : FLOOR_ARGB);
+                image.getPixelWriter().setPixels(tileX * TILE_SIZE, tileY * TILE_SIZE, TILE_SIZE, TILE_SIZE,
+                                                 format, tilePixels, 0, TILE_SIZE);
+            }
+        }
+        return image;
+    }
+
+    // Drops cached chunk images outside the given chunk range (the view plus a one-chunk margin).
+    private void evictDistantChunks(int minChunkX, int minChunkY, int maxChunkX, int maxChunkY) {
+        for (int i = residentChunks.size() - 1; i >= 0; i--) {
+            int index = residentChunks.get(i);
+            int chunkX = index % chunkCols;
+            int chunkY = index / chunkCols;
+            if (chunkX < minChunkX || chunkX > maxChunkX || chunkY < minChunkY || chunkY > maxChunkY) {
+                chunks[index] = null;
+                residentChunks.remove(i);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.rpg.input;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads a log written by InputRecorder back one tick at a time. Fed to a
+ * Simulation of the same level with the recorded tick length, it replays
+ * the session exactly.
+ */
+public class InputPlayback implements Closeable {
+    private final DataInputStream in;
+    private final long stepNanos;
+    private double aimX;
+    private double aimY;
+
+    public InputPlayback(Path path) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        if (in.readInt() != InputRecorder.MAGIC) {
+            in.close();
+            throw new IOException(path + " is not an input log");
+        }
+        int version = in.readUnsignedByte();
+        if (version != InputRecorder.VERSION) {
+            in.close();
+            throw new IOException("Unsupported input log version " + version + " in " + path);
+        }
+        stepNanos = in.readLong();
+    }
+
+    // Tick length of the recorded session.
+    public long getStepNanos() {
+        return stepNanos;
+    }
+
+    /**
+     * Loads the next tick's input into input.
+     *
+     * @return false once the log is exhausted
+     */
+    public boolean next(InputState input) throws IOException {
+        int flags = in.read();
+        if (flags < 0) {
+            return false;
+        }
+        if ((flags & InputRecorder.AIM) != 0) {
+            try {
+                aimX = in.readDouble();
+                aimY = in.readDouble();
+            } catch (EOFException e) {
+                // A session cut off mid-record: the last tick is incomplete, so stop before it.
+                return false;
+            }
+        }
+        input.setMovement((flags & InputRecorder.UP) != 0, (flags & InputRecorder.DOWN) != 0,
+                          (flags & InputRecorder.LEFT) != 0, (flags & InputRecorder.RIGHT) != 0);
+        input.setShooting((flags & InputRecorder.SHOOTING) != 0, aimX, aimY);
+        if ((flags & InputRecorder.RELOAD) != 0) {
+            input.requestReload();
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
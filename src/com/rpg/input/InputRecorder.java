@@ -0,0 +1,73 @@
+package com.rpg.input;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes the InputState of every simulation tick to a binary log that
+ * InputPlayback reads back. The log starts with a header (MAGIC, VERSION,
+ * then the tick length in nanoseconds as a long) followed by one record
+ * per tick: a flags byte with the movement, shooting and reload bits, and
+ * the aim point as two doubles only on ticks where it changed. A held
+ * direction costs one byte per tick.
+ */
+public class InputRecorder implements Closeable {
+    static final int MAGIC = 0x52504749; // "RPGI"
+    static final int VERSION = 1;
+
+    static final int UP = 1;
+    static final int DOWN = 1 << 1;
+    static final int LEFT = 1 << 2;
+    static final int RIGHT = 1 << 3;
+    static final int SHOOTING = 1 << 4;
+    static final int RELOAD = 1 << 5;
+    static final int AIM = 1 << 6;
+
+    private final DataOutputStream out;
+    private double aimX = Double.NaN;
+    private double aimY = Double.NaN;
+    private long ticks;
+
+    public InputRecorder(Path path, long stepNanos) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(stepNanos);
+    }
+
+    // Call right before the tick that uses the input, so a pending reload is recorded before the tick consumes it.
+    public void record(InputState input) throws IOException {
+        int flags = (input.isUp() ? UP : 0)
+                | (input.isDown() ? DOWN : 0)
+                | (input.isLeft() ? LEFT : 0)
+                | (input.isRight() ? RIGHT : 0)
+                | (input.isShooting() ? SHOOTING : 0)
+                | (input.isReloadRequested() ? RELOAD : 0);
+        // Compared bit for bit, so the replay gets exactly the doubles the simulation saw.
+        boolean aimChanged = Double.doubleToLongBits(input.getAimX()) != Double.doubleToLongBits(aimX)
+                || Double.doubleToLongBits(input.getAimY()) != Double.doubleToLongBits(aimY);
+        if (aimChanged) {
+            aimX = input.getAimX();
+            aimY = input.getAimY();
+            out.writeByte(flags | AIM);
+            out.writeDouble(aimX);
+            out.writeDouble(aimY);
+        } else {
+            out.writeByte(flags);
+        }
+        ticks++;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,51 @@
+package com.rpg.input;
+
+/**
+ * Plain snapshot of the player's intent for one simulation tick.
+ * The aim point is in world coordinates, so the simulation never needs to
+ * know about the camera or the JavaFX scene.
+ */
+public class InputState {
+    private boolean up, down, left, right;
+    private boolean shooting;
+    private boolean reload;
+    private double aimX, aimY;
+
+    public void setMovement(boolean up, boolean down, boolean left, boolean right) {
+        this.up = up;
+        this.down = down;
+        this.left = left;
+        this.right = right;
+    }
+
+    public void setShooting(boolean shooting, double aimX, double aimY) {
+        this.shooting = shooting;
+        this.aimX = aimX;
+        this.aimY = aimY;
+    }
+
+    // Reload is an event rather than a held button: it stays set until a tick consumes it.
+    public void requestReload() {
+        reload = true;
+    }
+
+    // Whether a reload is pending, without consuming it.
+    public boolean isReloadRequested() {
+        return reload;
+    }
+
+    public boolean consumeReload() {
+        boolean requested = reload;
+        reload = false;
+        return requested;
+    }
+
+    public boolean isUp() { return up; }
+    public boolean isDown() { return down; }
+    public boolean isLeft() { return left; }
+    public boolean isRight() { return right; }
+
+    public boolean isShooting() { return shooting; }
+    public double getAimX() { return aimX; }
+    public double getAimY() { return aimY; }
+}
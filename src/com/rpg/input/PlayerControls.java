@@ -18,8 +18,13 @@ public class PlayerControls {
     
     private MouseButton shootButton;
     private MouseButton reloadButton;
+    private KeyCode overlayKey;
+    private KeyCode quickSaveKey;
+    private KeyCode quickLoadKey;
     
     private ReloadListener reloadListener;
+    private OverlayListener overlayListener;
+    private SnapshotListener snapshotListener;
 
     public PlayerControls() {
         keyUp = KeyCode.Z;
@@ -28,6 +33,9 @@ public class PlayerControls {
         keyRight = KeyCode.D;
         shootButton = MouseButton.PRIMARY;
         reloadButton = MouseButton.SECONDARY;
+        overlayKey = KeyCode.F3;
+        quickSaveKey = KeyCode.F5;
+        quickLoadKey = KeyCode.F9;
         shooting = false;
     }
 
@@ -53,6 +61,15 @@ public class PlayerControls {
         if (code == keyRight || code == KeyCode.RIGHT) {
             right = true;
         }
+        if (code == overlayKey && overlayListener != null) {
+            overlayListener.onToggleOverlay();
+        }
+        if (code == quickSaveKey && snapshotListener != null) {
+            snapshotListener.onQuickSave();
+        }
+        if (code == quickLoadKey && snapshotListener != null) {
+            snapshotListener.onQuickLoad();
+        }
     }
 
     private void handleKeyReleased(KeyEvent event) {
@@ -112,13 +129,34 @@ public class PlayerControls {
 
     public void setShootButton(MouseButton button) { this.shootButton = button; }
     public void setReloadButton(MouseButton button) { this.reloadButton = button; }
+    public void setOverlayKey(KeyCode key) { this.overlayKey = key; }
+    public void setQuickSaveKey(KeyCode key) { this.quickSaveKey = key; }
+    public void setQuickLoadKey(KeyCode key) { this.quickLoadKey = key; }
 
     public void setReloadListener(ReloadListener listener) {
         this.reloadListener = listener;
     }
 
+    public void setOverlayListener(OverlayListener listener) {
+        this.overlayListener = listener;
+    }
+
+    public void setSnapshotListener(SnapshotListener listener) {
+        this.snapshotListener = listener;
+    }
+
     public interface ReloadListener {
         void onReload();
     }
+
+    public interface OverlayListener {
+        void onToggleOverlay();
+    }
+
+    public interface SnapshotListener {
+        void onQuickSave();
+
+        void onQuickLoad();
+    }
 }
 
@@ -0,0 +1,146 @@
+package com.rpg.net;
+
+import java.nio.ByteBuffer;
+
+/**
+ * What a client knows of the server's world: the last few snapshots it
+ * received, decoded. interpolate draws the world at a point between two of
+ * them, so entities move smoothly even though snapshots arrive only every
+ * few ticks and with jitter. Projectiles have no identity across
+ * snapshots, so they are extrapolated from the latest snapshot along their
+ * velocity instead.
+ */
+public class ClientWorld {
+    public interface EntityVisitor {
+        void visit(int id, double x, double y, double health);
+    }
+
+    public interface ProjectileVisitor {
+        void visit(double x, double y, int owner);
+    }
+
+    private static final int HISTORY = 32;
+
+    private final Snapshot[] history = new Snapshot[HISTORY];
+    // Number of snapshots received; the latest is history[(received - 1) % HISTORY].
+    private long received;
+
+    public ClientWorld() {
+        for (int i = 0; i < HISTORY; i++) {
+            history[i] = new Snapshot();
+        }
+    }
+
+    public boolean hasSnapshot() {
+        return received > 0;
+    }
+
+    public long getLatestTick() {
+        return latest().tick;
+    }
+
+    /**
+     * Visits every player and enemy at renderTick, blending each one
+     * between the two snapshots around it; entities only in the later one
+     * appear where it has them. Before the oldest or after the newest
+     * snapshot the nearest one is shown as is.
+     *
+     * @return true if renderTick fell between two received snapshots
+     */
+    public boolean interpolate(double renderTick, EntityVisitor players, EntityVisitor enemies,
+                               ProjectileVisitor projectiles) {
+        if (received == 0) {
+            return false;
+        }
+        Snapshot newest = latest();
+        Snapshot from = newest;
+        Snapshot to = newest;
+        boolean between = false;
+        if (renderTick < newest.tick) {
+            long oldest = received - Math.min(received, HISTORY);
+            from = history[(int) (oldest % HISTORY)];
+            to = from;
+            for (long n = received - 1; n > oldest; n--) {
+                Snapshot earlier = history[(int) ((n - 1) % HISTORY)];
+                if (earlier.tick <= renderTick) {
+                    from = earlier;
+                    to = history[(int) (n % HISTORY)];
+                    between = true;
+                    break;
+                }
+            }
+        }
+        double t = to == from ? 1 : (renderTick - from.tick) / (to.tick - from.tick);
+        blend(from.players, to.players, t, players);
+        blend(from.enemies, to.enemies, t, enemies);
+        double ahead = renderTick - from.tick;
+        for (int i = 0; i < from.projectileCount; i++) {
+            projectiles.visit(Protocol.position(from.projectileX[i]) + ahead * Protocol.position(from.projectileVx[i]),
+                              Protocol.position(from.projectileY[i]) + ahead * Protocol.position(from.projectileVy[i]),
+                              from.projectileOwner[i]);
+        }
+        return between;
+    }
+
+    // Decodes a SNAPSHOT payload against the latest snapshot.
+    void read(ByteBuffer payload) {
+        Snapshot baseline = latest();
+        Snapshot next = history[(int) (received % HISTORY)];
+        next.tick = Protocol.getVarint(payload);
+        next.players.readDelta(payload, baseline.players);
+        next.enemies.readDelta(payload, baseline.enemies);
+        int count = Protocol.getVarint(payload);
+        next.ensureProjectiles(count);
+        for (int i = 0; i < count; i++) {
+            next.projectileOwner[i] = payload.get();
+            next.projectileX[i] = Protocol.getSigned(payload);
+            next.projectileY[i] = Protocol.getSigned(payload);
+            next.projectileVx[i] = Protocol.getSigned(payload);
+            next.projectileVy[i] = Protocol.getSigned(payload);
+        }
+        next.projectileCount = count;
+        received++;
+    }
+
+    private Snapshot latest() {
+        return history[(int) ((received + HISTORY - 1) % HISTORY)];
+    }
+
+    private static void blend(EntityTable from, EntityTable to, double t, EntityVisitor visitor) {
+        for (int i = 0; i < to.size(); i++) {
+            int previous = from == to ? -1 : from.indexOf(to.getId(i));
+            double x = Protocol.position(to.getX(i));
+            double y = Protocol.position(to.getY(i));
+            if (previous >= 0) {
+                double fromX = Protocol.position(from.getX(previous));
+                double fromY = Protocol.position(from.getY(previous));
+                x = fromX + (x - fromX) * t;
+                y = fromY + (y - fromY) * t;
+            }
+            visitor.visit(to.getId(i), x, y, Protocol.health(to.getHealth(i)));
+        }
+    }
+
+    private static final class Snapshot {
+        long tick = -1;
+        final EntityTable players = new EntityTable();
+        final EntityTable enemies = new EntityTable();
+        int projectileCount;
+        byte[] projectileOwner = new byte[0];
+        int[] projectileX = new int[0];
+        int[] projectileY = new int[0];
+        int[] projectileVx = new int[0];
+        int[] projectileVy = new int[0];
+
+        void ensureProjectiles(int count) {
+            if (projectileX.length < count) {
+                int capacity = Math.max(count, 2 * projectileX.length);
+                projectileOwner = new byte[capacity];
+                projectileX = new int[capacity];
+                projectileY = new int[capacity];
+                projectileVx = new int[capacity];
+                projectileVy = new int[capacity];
+            }
+        }
+    }
+}
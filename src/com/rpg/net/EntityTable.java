@@ -0,0 +1,228 @@
+package com.rpg.net;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Quantised position and health of one kind of entity, sorted by id, as
+ * sent in a snapshot. The server keeps the table it last sent to a client
+ * as the baseline for the next delta and the client keeps the one it last
+ * decoded. TCP delivers every snapshot in order, so both sides always agree
+ * on the baseline without acknowledgements.
+ *
+ * A delta lists, in id order, every entity that is new or changed (an id
+ * gap, a mask of NEW / X / Y / HEALTH, then the changed fields as signed
+ * differences, or absolute values for a new entity), followed by the ids of
+ * entities that are gone. Entities that did not change cost nothing.
+ */
+final class EntityTable {
+    private static final int NEW = 1;
+    private static final int X = 1 << 1;
+    private static final int Y = 1 << 2;
+    private static final int HEALTH = 1 << 3;
+
+    private int count;
+    private int[] ids = new int[64];
+    private int[] x = new int[64];
+    private int[] y = new int[64];
+    private int[] health = new int[64];
+
+    // Decoding scratch: the change records of the delta being read.
+    private int[] changeMasks = new int[0];
+    private int[] changeIds = new int[0];
+    private int[] changeX = new int[0];
+    private int[] changeY = new int[0];
+    private int[] changeHealth = new int[0];
+    private int[] removedIds = new int[0];
+
+    int size() {
+        return count;
+    }
+
+    int getId(int i) {
+        return ids[i];
+    }
+
+    int getX(int i) {
+        return x[i];
+    }
+
+    int getY(int i) {
+        return y[i];
+    }
+
+    int getHealth(int i) {
+        return health[i];
+    }
+
+    void clear() {
+        count = 0;
+    }
+
+    // Appends an entity; ids must be added in increasing order.
+    void add(int id, int x, int y, int health) {
+        if (count == ids.length) {
+            int capacity = 2 * count;
+            ids = Arrays.copyOf(ids, capacity);
+            this.x = Arrays.copyOf(this.x, capacity);
+            this.y = Arrays.copyOf(this.y, capacity);
+            this.health = Arrays.copyOf(this.health, capacity);
+        }
+        ids[count] = id;
+        this.x[count] = x;
+        this.y[count] = y;
+        this.health[count] = health;
+        count++;
+    }
+
+    // Index of the entity with this id, or -1.
+    int indexOf(int id) {
+        int index = Arrays.binarySearch(ids, 0, count, id);
+        return index >= 0 ? index : -1;
+    }
+
+    // Upper bound on the bytes writeDelta needs for these two tables.
+    static int maxDeltaBytes(EntityTable baseline, EntityTable current) {
+        return 2 * Protocol.MAX_VARINT_BYTES + current.count * (1 + 4 * Protocol.MAX_VARINT_BYTES)
+                + baseline.count * Protocol.MAX_VARINT_BYTES;
+    }
+
+    static void writeDelta(ByteBuffer out, EntityTable baseline, EntityTable current) {
+        int changed = 0;
+        int removed = 0;
+        int i = 0;
+        int j = 0;
+        while (i < baseline.count || j < current.count) {
+            int order = compare(baseline, i, current, j);
+            if (order < 0) {
+                removed++;
+                i++;
+            } else if (order > 0) {
+                changed++;
+                j++;
+            } else {
+                if (mask(baseline, i, current, j) != 0) {
+                    changed++;
+                }
+                i++;
+                j++;
+            }
+        }
+
+        Protocol.putVarint(out, changed);
+        int previous = -1;
+        i = 0;
+        for (j = 0; j < current.count; j++) {
+            while (i < baseline.count && baseline.ids[i] < current.ids[j]) {
+                i++;
+            }
+            boolean known = i < baseline.count && baseline.ids[i] == current.ids[j];
+            int mask = known ? mask(baseline, i, current, j) : NEW | X | Y | HEALTH;
+            if (mask == 0) {
+                continue;
+            }
+            Protocol.putVarint(out, current.ids[j] - previous);
+            previous = current.ids[j];
+            out.put((byte) mask);
+            if ((mask & X) != 0) {
+                Protocol.putSigned(out, current.x[j] - (known ? baseline.x[i] : 0));
+            }
+            if ((mask & Y) != 0) {
+                Protocol.putSigned(out, current.y[j] - (known ? baseline.y[i] : 0));
+            }
+            if ((mask & HEALTH) != 0) {
+                Protocol.putSigned(out, current.health[j] - (known ? baseline.health[i] : 0));
+            }
+        }
+
+        Protocol.putVarint(out, removed);
+        previous = -1;
+        j = 0;
+        for (i = 0; i < baseline.count; i++) {
+            while (j < current.count && current.ids[j] < baseline.ids[i]) {
+                j++;
+            }
+            if (j == current.count || current.ids[j] != baseline.ids[i]) {
+                Protocol.putVarint(out, baseline.ids[i] - previous);
+                previous = baseline.ids[i];
+            }
+        }
+    }
+
+    // Replaces this table with baseline plus a delta written by writeDelta.
+    void readDelta(ByteBuffer in, EntityTable baseline) {
+        int changed = Protocol.getVarint(in);
+        if (changeIds.length < changed) {
+            int capacity = Math.max(changed, 2 * changeIds.length);
+            changeMasks = new int[capacity];
+            changeIds = new int[capacity];
+            changeX = new int[capacity];
+            changeY = new int[capacity];
+            changeHealth = new int[capacity];
+        }
+        int id = -1;
+        for (int c = 0; c < changed; c++) {
+            id += Protocol.getVarint(in);
+            int mask = in.get();
+            changeIds[c] = id;
+            changeMasks[c] = mask;
+            changeX[c] = (mask & X) != 0 ? Protocol.getSigned(in) : 0;
+            changeY[c] = (mask & Y) != 0 ? Protocol.getSigned(in) : 0;
+            changeHealth[c] = (mask & HEALTH) != 0 ? Protocol.getSigned(in) : 0;
+        }
+        int removed = Protocol.getVarint(in);
+        if (removedIds.length < removed) {
+            removedIds = new int[Math.max(removed, 2 * removedIds.length)];
+        }
+        id = -1;
+        for (int r = 0; r < removed; r++) {
+            id += Protocol.getVarint(in);
+            removedIds[r] = id;
+        }
+
+        clear();
+        int i = 0;
+        int c = 0;
+        int r = 0;
+        while (i < baseline.count || c < changed) {
+            int baseId = i < baseline.count ? baseline.ids[i] : Integer.MAX_VALUE;
+            int changeId = c < changed ? changeIds[c] : Integer.MAX_VALUE;
+            if (baseId < changeId) {
+                while (r < removed && removedIds[r] < baseId) {
+                    r++;
+                }
+                if (r == removed || removedIds[r] != baseId) {
+                    add(baseId, baseline.x[i], baseline.y[i], baseline.health[i]);
+                }
+                i++;
+            } else if ((changeMasks[c] & NEW) != 0 || baseId != changeId) {
+                add(changeId, changeX[c], changeY[c], changeHealth[c]);
+                if (baseId == changeId) {
+                    i++;
+                }
+                c++;
+            } else {
+                add(changeId, baseline.x[i] + changeX[c], baseline.y[i] + changeY[c], baseline.health[i] + changeHealth[c]);
+                i++;
+                c++;
+            }
+        }
+    }
+
+    // Orders entries by id, with a missing entry (past the end) last.
+    private static int compare(EntityTable a, int i, EntityTable b, int j) {
+        if (i == a.count) {
+            return 1;
+        }
+        if (j == b.count) {
+            return -1;
+        }
+        return Integer.compare(a.ids[i], b.ids[j]);
+    }
+
+    private static int mask(EntityTable baseline, int i, EntityTable current, int j) {
+        return (baseline.x[i] != current.x[j] ? X : 0)
+                | (baseline.y[i] != current.y[j] ? Y : 0)
+                | (baseline.health[i] != current.health[j] ? HEALTH : 0);
+    }
+}
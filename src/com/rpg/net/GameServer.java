@@ -0,0 +1,406 @@
+package com.rpg.net;
+
+import com.rpg.config.GameConfig;
+import com.rpg.entities.Enemy;
+import com.rpg.entities.Player;
+import com.rpg.entities.ProjectileStore;
+import com.rpg.input.InputState;
+import com.rpg.simulation.FixedStepClock;
+import com.rpg.simulation.LatencyHistogram;
+import com.rpg.simulation.Simulation;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Headless authoritative server: owns the only Simulation, gives every
+ * connected client a player of its own and drives it with the last input
+ * that client sent. Every SNAPSHOT_INTERVAL_TICKS ticks each client gets
+ * the players, enemies and projectiles within NET_VIEW_DISTANCE of its
+ * player, delta-encoded against the previous snapshot it was sent.
+ *
+ * All sockets are non-blocking and serviced from the tick thread with
+ * selectNow, so a slow client never stalls the simulation: its snapshots
+ * queue up to NET_MAX_QUEUED_BYTES and are skipped beyond that, the next
+ * one then being encoded against the last one that was queued.
+ *
+ * Usage: GameServer [port]
+ */
+public class GameServer implements Closeable {
+    private static final double VIEW_DISTANCE_SQUARED = GameConfig.NET_VIEW_DISTANCE * GameConfig.NET_VIEW_DISTANCE;
+    private static final long STATUS_INTERVAL = 10_000_000_000L;
+
+    private final Simulation simulation;
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final FixedStepClock clock = new FixedStepClock(GameConfig.OPTIMAL_TIME, GameConfig.MAX_CATCH_UP_STEPS);
+    // Connections in the same order as the simulation's players, so inputs[i] drives player i.
+    private final List<Connection> connections = new ArrayList<>();
+    private InputState[] inputs = new InputState[0];
+    private final LatencyHistogram tickTimes = new LatencyHistogram();
+    // Projectiles in view for the snapshot being encoded, as store indices.
+    private int[] visibleProjectiles = new int[64];
+    private int nextPlayerId;
+    private long tick;
+    private volatile boolean running;
+
+    // Metrics.
+    private long bytesSent;
+    private long bytesReceived;
+    private long snapshotsSent;
+    private long snapshotsSkipped;
+
+    /**
+     * Serves the given simulation on a port, 0 for any free one. Players the
+     * simulation already has are removed; only clients get players.
+     */
+    public GameServer(Simulation simulation, int port) throws IOException {
+        this.simulation = simulation;
+        while (!simulation.getPlayers().isEmpty()) {
+            simulation.removePlayer(simulation.getPlayers().get(0));
+        }
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port));
+        server.configureBlocking(false);
+        selector = Selector.open();
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : GameConfig.SERVER_PORT;
+        try (GameServer server = new GameServer(Simulation.loadLevel(), port)) {
+            System.out.println("Listening on port " + server.getPort());
+            server.run();
+        }
+    }
+
+    // Runs ticks in real time until stop is called.
+    public void run() throws IOException {
+        running = true;
+        long lastStatus = System.nanoTime();
+        while (running) {
+            long now = System.nanoTime();
+            int steps = clock.advance(now);
+            for (int i = 0; i < steps; i++) {
+                tick(clock.step());
+            }
+            if (now - lastStatus >= STATUS_INTERVAL) {
+                lastStatus = now;
+                System.out.printf("%d clients, tick p50 %.1f us p99 %.1f us, %d kB sent, %d snapshots skipped%n",
+                                  connections.size(), tickTimes.getPercentileMicros(50),
+                                  tickTimes.getPercentileMicros(99), bytesSent / 1024, snapshotsSkipped);
+            }
+            LockSupport.parkNanos((long) ((1 - clock.getAlpha()) * clock.getStepNanos()));
+        }
+    }
+
+    // Makes run return after the current tick; may be called from any thread.
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * One server tick: accepts connections and reads inputs, advances the
+     * simulation, then sends snapshots when one is due.
+     */
+    public void tick(long now) throws IOException {
+        long start = System.nanoTime();
+        poll();
+        for (int i = 0; i < connections.size(); i++) {
+            Player player = connections.get(i).player;
+            if (!player.isAlive()) {
+                player.placeAt(GameConfig.PLAYER_START_X, GameConfig.PLAYER_START_Y);
+                player.setHealth(GameConfig.PLAYER_HEALTH);
+            }
+        }
+        simulation.update(now, inputs);
+        tick++;
+        if (tick % GameConfig.SNAPSHOT_INTERVAL_TICKS == 0) {
+            // Backwards, as a failed send removes the connection.
+            for (int i = connections.size() - 1; i >= 0; i--) {
+                sendSnapshot(connections.get(i));
+            }
+        }
+        tickTimes.record(System.nanoTime() - start);
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    public Simulation getSimulation() {
+        return simulation;
+    }
+
+    public int getClientCount() {
+        return connections.size();
+    }
+
+    // Duration of whole server ticks: networking, simulation and snapshot encoding.
+    public LatencyHistogram getTickTimes() {
+        return tickTimes;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public long getSnapshotsSent() {
+        return snapshotsSent;
+    }
+
+    // Snapshots not sent because the client had not read the earlier ones yet.
+    public long getSnapshotsSkipped() {
+        return snapshotsSkipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (int i = 0; i < connections.size(); i++) {
+            connections.get(i).channel.close();
+        }
+        selector.close();
+        server.close();
+    }
+
+    private void poll() throws IOException {
+        selector.selectNow();
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) {
+                continue;
+            }
+            if (key.isAcceptable()) {
+                accept();
+                continue;
+            }
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isReadable()) {
+                    read(connection);
+                }
+                if (key.isValid() && key.isWritable()) {
+                    flush(connection);
+                }
+            } catch (IOException | RuntimeException e) {
+                // A broken socket or a malformed frame only costs that client its connection.
+                disconnect(connection);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(nextPlayerId++, channel, simulation.addPlayer());
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            connections.add(connection);
+            updateInputs();
+            ByteBuffer out = connection.pending;
+            int frame = Protocol.beginFrame(out, Protocol.WELCOME);
+            Protocol.putVarint(out, connection.id);
+            out.putLong(clock.getStepNanos());
+            Protocol.endFrame(out, frame);
+            try {
+                flush(connection);
+            } catch (IOException e) {
+                disconnect(connection);
+            }
+        }
+    }
+
+    /**
+     * Reads and applies what the client has sent, up to NET_MAX_READ_BYTES
+     * per tick; anything beyond that stays in the socket for the next tick,
+     * so a client sending without pause cannot hold up the tick. The buffer
+     * never grows: it is drained frame by frame between reads, and a frame
+     * longer than MAX_CLIENT_FRAME_BYTES fails the connection.
+     */
+    private void read(Connection connection) throws IOException {
+        ByteBuffer in = connection.in;
+        int budget = GameConfig.NET_MAX_READ_BYTES;
+        int read;
+        do {
+            read = connection.channel.read(in);
+            if (read < 0) {
+                disconnect(connection);
+                return;
+            }
+            bytesReceived += read;
+            budget -= read;
+            in.flip();
+            int length;
+            while ((length = Protocol.completeFrame(in, Protocol.MAX_CLIENT_FRAME_BYTES)) >= 0) {
+                ByteBuffer frame = Protocol.takeFrame(in, length);
+                if (frame.get() == Protocol.INPUT) {
+                    readInput(frame, connection.input);
+                }
+            }
+            in.compact();
+        } while (read > 0 && budget > 0);
+    }
+
+    private static void readInput(ByteBuffer frame, InputState input) {
+        int flags = frame.get();
+        double aimX = Protocol.position(Protocol.getSigned(frame));
+        double aimY = Protocol.position(Protocol.getSigned(frame));
+        input.setMovement((flags & Protocol.UP) != 0, (flags & Protocol.DOWN) != 0,
+                          (flags & Protocol.LEFT) != 0, (flags & Protocol.RIGHT) != 0);
+        input.setShooting((flags & Protocol.SHOOTING) != 0, aimX, aimY);
+        if ((flags & Protocol.RELOAD) != 0) {
+            input.requestReload();
+        }
+    }
+
+    private void sendSnapshot(Connection connection) {
+        ByteBuffer pending = connection.pending;
+        if (pending.position() > GameConfig.NET_MAX_QUEUED_BYTES) {
+            snapshotsSkipped++;
+            return;
+        }
+        double viewX = connection.player.getX();
+        double viewY = connection.player.getY();
+
+        EntityTable players = connection.players[1];
+        players.clear();
+        for (int i = 0; i < connections.size(); i++) {
+            Player player = connections.get(i).player;
+            if (inView(player.getX(), player.getY(), viewX, viewY)) {
+                players.add(connections.get(i).id, Protocol.quantisePosition(player.getX()),
+                            Protocol.quantisePosition(player.getY()), Protocol.quantiseHealth(player.getHealth()));
+            }
+        }
+        // Enemies join the list in spawn order, so their ids increase along it.
+        List<Enemy> enemyList = simulation.getEnemies();
+        EntityTable enemies = connection.enemies[1];
+        enemies.clear();
+        for (int i = 0; i < enemyList.size(); i++) {
+            Enemy enemy = enemyList.get(i);
+            if (inView(enemy.getX(), enemy.getY(), viewX, viewY)) {
+                enemies.add(enemy.getId(), Protocol.quantisePosition(enemy.getX()),
+                            Protocol.quantisePosition(enemy.getY()), Protocol.quantiseHealth(enemy.getHealth()));
+            }
+        }
+        ProjectileStore projectiles = simulation.getProjectiles();
+        int visible = 0;
+        for (int i = 0; i < projectiles.size(); i++) {
+            if (inView(projectiles.getX(i), projectiles.getY(i), viewX, viewY)) {
+                if (visible == visibleProjectiles.length) {
+                    visibleProjectiles = Arrays.copyOf(visibleProjectiles, 2 * visible);
+                }
+                visibleProjectiles[visible++] = i;
+            }
+        }
+
+        pending = connection.pending = Protocol.ensureRoom(pending, Protocol.FRAME_HEADER_BYTES
+                + 2 * Protocol.MAX_VARINT_BYTES
+                + EntityTable.maxDeltaBytes(connection.players[0], players)
+                + EntityTable.maxDeltaBytes(connection.enemies[0], enemies)
+                + visible * (1 + 4 * Protocol.MAX_VARINT_BYTES));
+        int frame = Protocol.beginFrame(pending, Protocol.SNAPSHOT);
+        Protocol.putVarint(pending, (int) tick);
+        EntityTable.writeDelta(pending, connection.players[0], players);
+        EntityTable.writeDelta(pending, connection.enemies[0], enemies);
+        Protocol.putVarint(pending, visible);
+        for (int v = 0; v < visible; v++) {
+            int i = visibleProjectiles[v];
+            pending.put((byte) projectiles.getOwner(i));
+            Protocol.putSigned(pending, Protocol.quantisePosition(projectiles.getX(i)));
+            Protocol.putSigned(pending, Protocol.quantisePosition(projectiles.getY(i)));
+            Protocol.putSigned(pending, Protocol.quantisePosition(projectiles.getVelocityX(i)));
+            Protocol.putSigned(pending, Protocol.quantisePosition(projectiles.getVelocityY(i)));
+        }
+        Protocol.endFrame(pending, frame);
+        connection.swapBaselines();
+        snapshotsSent++;
+        try {
+            flush(connection);
+        } catch (IOException e) {
+            disconnect(connection);
+        }
+    }
+
+    private static boolean inView(double x, double y, double viewX, double viewY) {
+        double dx = x - viewX;
+        double dy = y - viewY;
+        return dx * dx + dy * dy <= VIEW_DISTANCE_SQUARED;
+    }
+
+    // Writes as much of the pending bytes as the socket takes and waits for OP_WRITE for the rest.
+    private void flush(Connection connection) throws IOException {
+        ByteBuffer pending = connection.pending;
+        pending.flip();
+        bytesSent += connection.channel.write(pending);
+        pending.compact();
+        connection.key.interestOps(pending.position() > 0
+                ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    private void disconnect(Connection connection) {
+        if (!connections.remove(connection)) {
+            return;
+        }
+        simulation.removePlayer(connection.player);
+        updateInputs();
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            // Already gone.
+        }
+    }
+
+    private void updateInputs() {
+        inputs = new InputState[connections.size()];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = connections.get(i).input;
+        }
+    }
+
+    private static final class Connection {
+        final int id;
+        final SocketChannel channel;
+        final Player player;
+        final InputState input = new InputState();
+        SelectionKey key;
+        ByteBuffer in = ByteBuffer.allocate(256);
+        // Bytes not yet accepted by the socket, in write mode.
+        ByteBuffer pending = ByteBuffer.allocate(16 * 1024);
+        // [0] is what the client last received, [1] the snapshot being encoded.
+        final EntityTable[] players = {new EntityTable(), new EntityTable()};
+        final EntityTable[] enemies = {new EntityTable(), new EntityTable()};
+
+        Connection(int id, SocketChannel channel, Player player) {
+            this.id = id;
+            this.channel = channel;
+            this.player = player;
+        }
+
+        void swapBaselines() {
+            EntityTable sent = players[1];
+            players[1] = players[0];
+            players[0] = sent;
+            sent = enemies[1];
+            enemies[1] = enemies[0];
+            enemies[0] = sent;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.rpg.net;
+
+import com.rpg.config.GameConfig;
+import com.rpg.input.InputState;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Client side of a GameServer connection. The channel is non-blocking:
+ * poll drains whatever arrived into the ClientWorld and never waits, and
+ * sendInput only queues bytes when the input differs from the last one
+ * sent or asks for a reload. Meant to be called once per frame from a render loop, or from a
+ * load test driving many clients on one thread.
+ */
+public class NetClient implements Closeable {
+    private final SocketChannel channel;
+    private final ClientWorld world = new ClientWorld();
+    private ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer out = ByteBuffer.allocate(256);
+    private int playerId = -1;
+    private long stepNanos = GameConfig.OPTIMAL_TIME;
+    private long latestArrival;
+
+    // Last input sent, to skip unchanged ones.
+    private int sentFlags = -1;
+    private int sentAimX;
+    private int sentAimY;
+
+    private long bytesReceived;
+    private long bytesSent;
+    private long snapshots;
+
+    public NetClient(InetSocketAddress server) throws IOException {
+        channel = SocketChannel.open(server);
+        channel.socket().setTcpNoDelay(true);
+        channel.configureBlocking(false);
+    }
+
+    // Queues the input if it changed since the last one sent; a pending reload always goes out.
+    public void sendInput(InputState input) throws IOException {
+        int flags = (input.isUp() ? Protocol.UP : 0)
+                | (input.isDown() ? Protocol.DOWN : 0)
+                | (input.isLeft() ? Protocol.LEFT : 0)
+                | (input.isRight() ? Protocol.RIGHT : 0)
+                | (input.isShooting() ? Protocol.SHOOTING : 0)
+                | (input.consumeReload() ? Protocol.RELOAD : 0);
+        int aimX = Protocol.quantisePosition(input.getAimX());
+        int aimY = Protocol.quantisePosition(input.getAimY());
+        // A reload is an event, not a state: two in a row look alike but must both be sent.
+        if ((flags & Protocol.RELOAD) != 0 || flags != sentFlags || aimX != sentAimX || aimY != sentAimY) {
+            out = Protocol.ensureRoom(out, Protocol.FRAME_HEADER_BYTES + 1 + 2 * Protocol.MAX_VARINT_BYTES);
+            int frame = Protocol.beginFrame(out, Protocol.INPUT);
+            out.put((byte) flags);
+            Protocol.putSigned(out, aimX);
+            Protocol.putSigned(out, aimY);
+            Protocol.endFrame(out, frame);
+            sentFlags = flags;
+            sentAimX = aimX;
+            sentAimY = aimY;
+        }
+        flush();
+    }
+
+    /**
+     * Reads and decodes everything the server has sent so far.
+     *
+     * @return false once the server has closed the connection
+     */
+    public boolean poll(long now) throws IOException {
+        flush();
+        int read;
+        boolean open = true;
+        while ((read = channel.read(in)) > 0) {
+            bytesReceived += read;
+            if (!in.hasRemaining()) {
+                in = Protocol.ensureRoom(in, in.capacity());
+            }
+        }
+        if (read < 0) {
+            open = false;
+        }
+        in.flip();
+        int length;
+        while ((length = Protocol.completeFrame(in, Integer.MAX_VALUE)) >= 0) {
+            ByteBuffer frame = Protocol.takeFrame(in, length);
+            byte type = frame.get();
+            if (type == Protocol.WELCOME) {
+                playerId = Protocol.getVarint(frame);
+                stepNanos = frame.getLong();
+            } else if (type == Protocol.SNAPSHOT) {
+                world.read(frame);
+                latestArrival = now;
+                snapshots++;
+            }
+        }
+        in.compact();
+        return open;
+    }
+
+    /**
+     * The server tick to draw at the given time: the newest snapshot's tick
+     * plus the time since it arrived, held back by
+     * NET_INTERPOLATION_DELAY_TICKS so there is usually a later snapshot to
+     * blend towards.
+     */
+    public double getRenderTick(long now) {
+        return world.getLatestTick() + (double) (now - latestArrival) / stepNanos
+                - GameConfig.NET_INTERPOLATION_DELAY_TICKS;
+    }
+
+    public ClientWorld getWorld() {
+        return world;
+    }
+
+    // Id of this client's player in the snapshots, or -1 before the server's welcome.
+    public int getPlayerId() {
+        return playerId;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getSnapshots() {
+        return snapshots;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void flush() throws IOException {
+        out.flip();
+        bytesSent += channel.write(out);
+        out.compact();
+    }
+}
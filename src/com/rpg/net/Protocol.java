@@ -0,0 +1,135 @@
+package com.rpg.net;
+
+import com.rpg.config.GameConfig;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format shared by GameServer and NetClient. Every message is a frame:
+ * its length as an int, a type byte, then the payload. Numbers inside
+ * payloads are LEB128 varints, signed ones zigzag-encoded first, so the
+ * small deltas that make up most snapshots take a byte or two. Positions
+ * travel in 1/POSITION_SCALE pixel steps and health in tenths.
+ *
+ * WELCOME (server to client): player id, tick length in nanoseconds.
+ * INPUT (client to server): flags byte (the UP to RELOAD bits), then the aim point as
+ * two signed varints. Sent only when the input changed; the server keeps
+ * the last one.
+ * SNAPSHOT (server to client): tick, players delta, enemies delta (see
+ * EntityTable), then the projectiles in full: count, and per projectile the
+ * owner byte, position and velocity per tick.
+ */
+final class Protocol {
+    static final byte WELCOME = 1;
+    static final byte INPUT = 2;
+    static final byte SNAPSHOT = 3;
+
+    static final int FRAME_HEADER_BYTES = Integer.BYTES + 1;
+    // Upper bound on a varint-encoded int.
+    static final int MAX_VARINT_BYTES = 5;
+    // Largest frame length (type byte and payload) the server accepts; an input needs at most 12.
+    static final int MAX_CLIENT_FRAME_BYTES = 64;
+
+    static final int UP = 1;
+    static final int DOWN = 1 << 1;
+    static final int LEFT = 1 << 2;
+    static final int RIGHT = 1 << 3;
+    static final int SHOOTING = 1 << 4;
+    static final int RELOAD = 1 << 5;
+
+    private static final int POSITION_SCALE = GameConfig.NET_POSITION_SCALE;
+
+    private Protocol() {
+    }
+
+    static int quantisePosition(double value) {
+        return (int) Math.round(value * POSITION_SCALE);
+    }
+
+    static double position(int quantised) {
+        return (double) quantised / POSITION_SCALE;
+    }
+
+    static int quantiseHealth(double health) {
+        return (int) Math.round(health * 10);
+    }
+
+    static double health(int quantised) {
+        return quantised / 10.0;
+    }
+
+    static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 7 * MAX_VARINT_BYTES; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint longer than " + MAX_VARINT_BYTES + " bytes");
+    }
+
+    static void putSigned(ByteBuffer buffer, int value) {
+        putVarint(buffer, (value << 1) ^ (value >> 31));
+    }
+
+    static int getSigned(ByteBuffer buffer) {
+        int value = getVarint(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // Starts a frame of the given type; finish it with endFrame once the payload is written.
+    static int beginFrame(ByteBuffer buffer, byte type) {
+        int start = buffer.position();
+        buffer.putInt(0).put(type);
+        return start;
+    }
+
+    static void endFrame(ByteBuffer buffer, int start) {
+        buffer.putInt(start, buffer.position() - start - Integer.BYTES);
+    }
+
+    /**
+     * Returns the length of the complete frame at the buffer's position
+     * (type byte and payload), or -1 if it has not fully arrived yet.
+     *
+     * @throws ProtocolException if the frame claims a length below 1 or above maxLength
+     */
+    static int completeFrame(ByteBuffer buffer, int maxLength) throws ProtocolException {
+        if (buffer.remaining() < Integer.BYTES) {
+            return -1;
+        }
+        int length = buffer.getInt(buffer.position());
+        if (length < 1 || length > maxLength) {
+            throw new ProtocolException("Bad frame length " + length);
+        }
+        return buffer.remaining() - Integer.BYTES >= length ? length : -1;
+    }
+
+    // The type byte and payload of the complete frame at the buffer's position, which moves past the frame.
+    static ByteBuffer takeFrame(ByteBuffer buffer, int length) {
+        ByteBuffer frame = buffer.slice(buffer.position() + Integer.BYTES, length);
+        buffer.position(buffer.position() + Integer.BYTES + length);
+        return frame;
+    }
+
+    // Returns a buffer with room for extra more bytes, keeping what is in flight (position = bytes written).
+    static ByteBuffer ensureRoom(ByteBuffer buffer, int extra) {
+        if (buffer.remaining() >= extra) {
+            return buffer;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + extra));
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+}
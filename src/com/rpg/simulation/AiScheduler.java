@@ -0,0 +1,116 @@
+package com.rpg.simulation;
+
+import com.rpg.config.GameConfig;
+import com.rpg.entities.Enemy;
+import com.rpg.entities.Player;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Distance-based level of detail for enemy AI. Enemies near the player
+ * think every tick, mid-range ones every AI_MID_PERIOD ticks and move that
+ * many ticks' worth at once, and far ones sleep: they do not move and only
+ * re-check their distance every AI_FAR_CHECK_PERIOD ticks. The gap between
+ * the near and mid distances is far wider than the player can cover in one
+ * check period, so a sleeper always wakes before the player gets near.
+ * Mid-range and sleeping enemies are spread over their period by their slot
+ * in the enemy list, so each tick does about the same amount of work
+ * instead of every enemy thinking on the same tick.
+ */
+public class AiScheduler {
+    public static final int NEAR = 0;
+    public static final int MID = 1;
+    public static final int FAR = 2;
+
+    private static final double NEAR_DISTANCE_SQ = GameConfig.AI_NEAR_DISTANCE * GameConfig.AI_NEAR_DISTANCE;
+    private static final double MID_DISTANCE_SQ = GameConfig.AI_MID_DISTANCE * GameConfig.AI_MID_DISTANCE;
+
+    // Slots of the enemies that think this tick, and how many ticks each one catches up.
+    private int[] active = new int[64];
+    private int[] elapsed = new int[64];
+    private int activeCount;
+    private final int[] tierCounts = new int[3];
+
+    /**
+     * Picks the enemies that think on this tick, moving each one that is due
+     * a distance check into the tier for its distance from the nearest living
+     * player. With no player alive every enemy falls asleep.
+     */
+    public void schedule(long tick, List<Enemy> enemies, List<Player> players) {
+        activeCount = 0;
+        tierCounts[NEAR] = 0;
+        tierCounts[MID] = 0;
+        tierCounts[FAR] = 0;
+        for (int slot = 0; slot < enemies.size(); slot++) {
+            Enemy enemy = enemies.get(slot);
+            if (!enemy.isAlive()) continue;
+            int tier = enemy.getAiTier();
+            if (isDue(tier, tick, slot)) {
+                // Only mid-range enemies skip ticks they have to make up; sleepers wake where they are.
+                int ticks = tier == MID ? (int) Math.min(tick - enemy.getLastAiTick(), GameConfig.AI_MID_PERIOD) : 1;
+                tier = tierFor(enemy, players);
+                enemy.setAiState(tier, tick);
+                if (tier != FAR) {
+                    add(slot, Math.max(1, ticks));
+                }
+            }
+            tierCounts[tier]++;
+        }
+    }
+
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    // Slot in the enemy list of the i-th enemy thinking this tick.
+    public int getActive(int i) {
+        return active[i];
+    }
+
+    // Number of ticks the i-th enemy thinking this tick moves for.
+    public int getElapsed(int i) {
+        return elapsed[i];
+    }
+
+    // Living enemies per tier as of the last schedule.
+    public int getCount(int tier) {
+        return tierCounts[tier];
+    }
+
+    private static boolean isDue(int tier, long tick, int slot) {
+        switch (tier) {
+            case NEAR:
+                return true;
+            case MID:
+                return (tick + slot) % GameConfig.AI_MID_PERIOD == 0;
+            default:
+                return (tick + slot) % GameConfig.AI_FAR_CHECK_PERIOD == 0;
+        }
+    }
+
+    private static int tierFor(Enemy enemy, List<Player> players) {
+        double distanceSq = Double.MAX_VALUE;
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            if (player.isAlive()) {
+                double dx = enemy.getX() - player.getX();
+                double dy = enemy.getY() - player.getY();
+                distanceSq = Math.min(distanceSq, dx * dx + dy * dy);
+            }
+        }
+        if (distanceSq <= NEAR_DISTANCE_SQ) {
+            return NEAR;
+        }
+        return distanceSq <= MID_DISTANCE_SQ ? MID : FAR;
+    }
+
+    private void add(int slot, int ticks) {
+        if (activeCount == active.length) {
+            active = Arrays.copyOf(active, 2 * activeCount);
+            elapsed = Arrays.copyOf(elapsed, 2 * activeCount);
+        }
+        active[activeCount] = slot;
+        elapsed[activeCount] = ticks;
+        activeCount++;
+    }
+}
@@ -0,0 +1,76 @@
+package com.rpg.simulation;
+
+/**
+ * Turns irregular display pulses into a whole number of fixed-length
+ * simulation steps. Leftover time is carried in an accumulator, several
+ * catch-up steps may run after a slow frame (up to a cap, beyond which the
+ * backlog is dropped rather than spiralling), and getAlpha tells the
+ * renderer how far between the last two steps the current pulse falls.
+ * Simulation time only ever advances by whole steps, so it does not depend
+ * on pulse timing.
+ */
+public class FixedStepClock {
+    private final long stepNanos;
+    private final int maxStepsPerPulse;
+    private long lastPulse = -1;
+    private long accumulator;
+    private long simulationTime;
+    private long droppedSteps;
+
+    public FixedStepClock(long stepNanos, int maxStepsPerPulse) {
+        this.stepNanos = stepNanos;
+        this.maxStepsPerPulse = maxStepsPerPulse;
+    }
+
+    /**
+     * Accounts for the wall-clock time since the previous pulse.
+     *
+     * @return how many simulation steps to run for this pulse
+     */
+    public int advance(long now) {
+        if (lastPulse < 0) {
+            lastPulse = now;
+            return 0;
+        }
+        accumulator += now - lastPulse;
+        lastPulse = now;
+        int steps = (int) Math.min(accumulator / stepNanos, maxStepsPerPulse);
+        accumulator -= steps * stepNanos;
+        if (accumulator >= stepNanos) {
+            droppedSteps += accumulator / stepNanos;
+            accumulator %= stepNanos;
+        }
+        return steps;
+    }
+
+    // Moves simulation time forward by one step and returns the new time, to be passed to the step.
+    public long step() {
+        simulationTime += stepNanos;
+        return simulationTime;
+    }
+
+    // Continues from the given simulation time, e.g. after a snapshot was loaded; the next pulse runs no steps.
+    public void resetTo(long simulationTime) {
+        this.simulationTime = simulationTime;
+        accumulator = 0;
+        lastPulse = -1;
+    }
+
+    // Fraction of a step elapsed since the last simulation step, in [0, 1).
+    public double getAlpha() {
+        return (double) accumulator / stepNanos;
+    }
+
+    public long getSimulationTime() {
+        return simulationTime;
+    }
+
+    public long getStepNanos() {
+        return stepNanos;
+    }
+
+    // Steps skipped because a pulse arrived too late to catch up within the cap.
+    public long getDroppedSteps() {
+        return droppedSteps;
+    }
+}
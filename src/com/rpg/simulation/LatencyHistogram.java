@@ -0,0 +1,99 @@
+package com.rpg.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size histogram of nanosecond durations. Buckets are log-linear:
+ * every power of two is split into 16 equal sub-buckets, so percentiles are
+ * accurate to about 6% from 1 ns up to Long.MAX_VALUE with one small array
+ * that never grows. Recording is a few shifts and an increment, with no
+ * allocation.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long max;
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts[bucketOf(nanos)]++;
+        count++;
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    /**
+     * Returns an upper bound for the given percentile (0 to 100) of the
+     * recorded durations, or 0 if nothing has been recorded.
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(max, upperBound(bucket));
+            }
+        }
+        return max;
+    }
+
+    // getPercentile in microseconds, the unit every report prints.
+    public double getPercentileMicros(double percentile) {
+        return getPercentile(percentile) / 1000.0;
+    }
+
+    // Header of the tables formatRow prints rows of.
+    public static String formatHeader() {
+        return String.format("%-12s %8s %8s %8s%n", "phase (us)", "p50", "p99", "max");
+    }
+
+    // One table row: the name, then p50, p99 and max in microseconds, ending in a newline.
+    public String formatRow(String name) {
+        return String.format("%-12s %8.1f %8.1f %8.1f%n", name, getPercentileMicros(50), getPercentileMicros(99),
+                             max / 1000.0);
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        max = 0;
+    }
+
+    // Values below 16 get a bucket each; above, the top five significant bits pick the bucket.
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,66 @@
+package com.rpg.simulation;
+
+import com.rpg.input.InputPlayback;
+import com.rpg.input.InputState;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Headless replay of an input log recorded with -Drpg.record=<file>. The
+ * log is fed to a fresh Simulation of the current level on a fixed tick
+ * clock, as fast as the CPU allows, and the tick timings are printed, so a
+ * spike seen in a real session can be reproduced and profiled. It must run
+ * against the same level and GameConfig as the recording, or the session
+ * diverges.
+ *
+ * Usage: Replay <log> [runs]
+ */
+public class Replay {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: Replay <log> [runs]");
+            return;
+        }
+        Path log = Paths.get(args[0]);
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        for (int run = 1; run <= runs; run++) {
+            System.out.println("Run " + run + " of " + runs);
+            replay(log);
+        }
+    }
+
+    private static void replay(Path log) throws IOException {
+        Simulation simulation = Simulation.loadLevel();
+        InputState input = new InputState();
+        long ticks = 0;
+        long slowestTick = 0;
+        long slowestTime = 0;
+        long start = System.nanoTime();
+        try (InputPlayback playback = new InputPlayback(log)) {
+            FixedStepClock clock = new FixedStepClock(playback.getStepNanos(), 1);
+            while (!simulation.isGameOver() && playback.next(input)) {
+                long tickStart = System.nanoTime();
+                simulation.update(clock.step(), input);
+                long tickTime = System.nanoTime() - tickStart;
+                if (tickTime > slowestTime) {
+                    slowestTime = tickTime;
+                    slowestTick = ticks;
+                }
+                ticks++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        TickProfiler profiler = simulation.getProfiler();
+        System.out.print(LatencyHistogram.formatHeader());
+        for (TickProfiler.Phase phase : TickProfiler.Phase.values()) {
+            System.out.print(profiler.getHistogram(phase).formatRow(phase.getLabel()));
+        }
+        System.out.print(profiler.getTickHistogram().formatRow("tick"));
+        System.out.printf("%d ticks in %.2f s (%.0f ticks/s), slowest tick %d at %.1f us%n",
+                          ticks, seconds, ticks / seconds, slowestTick, slowestTime / 1000.0);
+        System.out.printf("end: player health %.1f, %d enemies, %d projectiles%s%n",
+                          simulation.getPlayer().getHealth(), simulation.getEnemies().size(),
+                          simulation.getProjectiles().size(), simulation.isGameOver() ? ", game over" : "");
+    }
+}
@@ -0,0 +1,755 @@
+package com.rpg.simulation;
+
+import com.rpg.config.EnemyMatrix;
+import com.rpg.config.EnvironmentMatrix;
+import com.rpg.config.GameConfig;
+import com.rpg.config.MapChunkCache;
+import com.rpg.config.MapFile;
+import com.rpg.config.TileGrid;
+import com.rpg.entities.Enemy;
+import com.rpg.entities.Player;
+import com.rpg.entities.ProjectileStore;
+import com.rpg.entities.Weapon;
+import com.rpg.input.InputState;
+import com.rpg.util.FlowField;
+import com.rpg.util.Navigator;
+import com.rpg.util.PathfinderNavigator;
+import com.rpg.util.SpatialGrid;
+import com.rpg.util.TileCollision;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Owns the whole game state (players, enemies, projectiles, walls) and
+ * advances it one tick at a time. Nothing here depends on JavaFX, so the
+ * same update(now, input) runs inside the game window, in benchmarks or
+ * headless; the window only reads the state back to draw it. There is one
+ * player to begin with; a server adds one per client, and every enemy goes
+ * after the nearest living player.
+ */
+public class Simulation {
+    private static final int TILE_SIZE = GameConfig.TILE_SIZE;
+    private static final double PLAYER_SPEED = GameConfig.PLAYER_SPEED;
+    private static final double ENEMY_DAMAGE = GameConfig.ENEMY_DAMAGE;
+    private static final ForkJoinPool SHARED_AI_POOL =
+            GameConfig.ENEMY_AI_THREADS > 1 ? new ForkJoinPool(GameConfig.ENEMY_AI_THREADS) : null;
+
+    private final TileGrid walls;
+    // World size in pixels, that of the level's tile grid.
+    private final int worldWidth;
+    private final int worldHeight;
+    // Every player has its own navigator, at the same index.
+    private final List<Player> players = new ArrayList<>();
+    private final List<Navigator> navigators = new ArrayList<>();
+    private final InputState[] singleInput = new InputState[1];
+    private final List<Enemy> enemies = new ArrayList<>();
+    // Killed enemies, kept for reuse by later spawns instead of being left in the enemy list.
+    private final List<Enemy> enemyPool = new ArrayList<>();
+    private int killedThisTick;
+    private final ProjectileStore projectiles = new ProjectileStore(GameConfig.PROJECTILE_CAPACITY);
+    private final SpatialGrid<Enemy> enemyIndex;
+    // Reused query buffers for the enemy index: one for the simulation thread, one per AI worker.
+    private final List<Enemy> nearbyEnemies = new ArrayList<>();
+    private final ThreadLocal<List<Enemy>> plannerNeighbours = ThreadLocal.withInitial(ArrayList::new);
+    // Only set for levels loaded from a map file, whose spawns are streamed in around the player.
+    private final MapChunkCache spawnChunks;
+    private final boolean[] spawnedChunks;
+    // How far flow fields reach from their player, in tiles: the whole level, or the streamed area around the player.
+    private final int navigatorReach;
+    private final TickProfiler profiler = new TickProfiler();
+    private final AiScheduler aiScheduler = new AiScheduler();
+    private long tick;
+    private int nextEnemyId;
+    // The now of the latest update, so a restored world continues from the time it was saved at.
+    private long time;
+    // Planned enemy positions, two doubles per enemy, applied once every enemy has been planned.
+    private double[] nextEnemyPositions = new double[0];
+    private ForkJoinPool aiPool = SHARED_AI_POOL;
+
+    public Simulation(int[][] environment, int[][] enemySpawns) {
+        this(TileGrid.fromMatrix(environment), null);
+        spawnEnemies(enemySpawns);
+    }
+
+    /**
+     * Builds a simulation for a level file. The spawn layer is never loaded
+     * as a whole: enemies of a chunk appear the first time that chunk is
+     * paged in near the player.
+     */
+    public Simulation(MapFile map) {
+        this(TileGrid.fromMap(map), new MapChunkCache(map, MapFile.SPAWNS, GameConfig.MAP_STREAM_RADIUS));
+        streamChunks();
+    }
+
+    private Simulation(TileGrid walls, MapChunkCache spawnChunks) {
+        this.walls = walls;
+        this.worldWidth = walls.getWidth() * TILE_SIZE;
+        this.worldHeight = walls.getHeight() * TILE_SIZE;
+        this.enemyIndex = new SpatialGrid<>(worldWidth, worldHeight, GameConfig.SPATIAL_CELL_SIZE);
+        this.spawnChunks = spawnChunks;
+        this.spawnedChunks = spawnChunks == null ? null
+                : new boolean[spawnChunks.getMap().getChunkCols() * spawnChunks.getMap().getChunkRows()];
+        this.navigatorReach = spawnChunks == null ? Integer.MAX_VALUE
+                : (GameConfig.MAP_STREAM_RADIUS + 1) * spawnChunks.getMap().getChunkSize();
+        if (spawnChunks != null) {
+            spawnChunks.setListener(this::spawnChunkEnemies);
+        }
+        addPlayer();
+    }
+
+    // Adds a player at the start position, e.g. for a client joining a server.
+    public Player addPlayer() {
+        Weapon weapon = new Weapon(
+                GameConfig.PLAYER_SHOOT_INTERVAL,
+                GameConfig.PLAYER_BULLET_DAMAGE,
+                GameConfig.PLAYER_AMMO_CAPACITY,
+                GameConfig.PLAYER_BULLET_SPEED
+        );
+        Player player = new Player(GameConfig.PLAYER_START_X, GameConfig.PLAYER_START_Y,
+                                   TILE_SIZE, TILE_SIZE, GameConfig.PLAYER_HEALTH, weapon);
+        players.add(player);
+        navigators.add(createNavigator(walls, navigatorReach));
+        return player;
+    }
+
+    public void removePlayer(Player player) {
+        int index = players.indexOf(player);
+        if (index >= 0) {
+            players.remove(index);
+            navigators.remove(index);
+        }
+    }
+
+    // Plays the level file when there is one, otherwise the built-in level.
+    public static Simulation loadLevel() {
+        Path mapPath = Paths.get(GameConfig.MAP_FILE);
+        if (Files.exists(mapPath)) {
+            try {
+                return new Simulation(MapFile.open(mapPath));
+            } catch (IOException e) {
+                System.out.println("Could not load " + mapPath + ", using the built-in level: " + e.getMessage());
+            }
+        }
+        return new Simulation(new EnvironmentMatrix().getMatrix(), new EnemyMatrix().getMatrix());
+    }
+
+    /**
+     * A shared flow field re-floods only when the player changes tile;
+     * otherwise each enemy runs its own search. Enemies further away than
+     * the mid AI distance sleep, so a field limited to the streamed area
+     * still covers every enemy that asks it for a step.
+     */
+    private static Navigator createNavigator(TileGrid walls, int reach) {
+        if (GameConfig.ENEMY_FLOW_FIELD) {
+            return new FlowField(walls, GameConfig.DIAGONAL_MOVEMENT, reach);
+        }
+        return new PathfinderNavigator(walls, () -> GameConfig.PATHFINDER.create(
+                walls.getWidth(), walls.getHeight(), GameConfig.DIAGONAL_MOVEMENT), GameConfig.PATH_CACHE_SIZE);
+    }
+
+    private void spawnEnemies(int[][] enemyPositions) {
+        for (int row = 0; row < enemyPositions.length; row++) {
+            for (int col = 0; col < enemyPositions[row].length; col++) {
+                if (enemyPositions[row][col] == 1) {
+                    spawnEnemy(col * TILE_SIZE, row * TILE_SIZE);
+                }
+            }
+        }
+    }
+
+    private void spawnChunkEnemies(int chunkX, int chunkY) {
+        MapFile map = spawnChunks.getMap();
+        int index = chunkY * map.getChunkCols() + chunkX;
+        // A chunk that is evicted and paged in again must not respawn its enemies.
+        if (spawnedChunks[index]) {
+            return;
+        }
+        spawnedChunks[index] = true;
+        int size = map.getChunkSize();
+        for (int row = chunkY * size; row < Math.min(map.getHeight(), (chunkY + 1) * size); row++) {
+            for (int col = chunkX * size; col < Math.min(map.getWidth(), (chunkX + 1) * size); col++) {
+                if (spawnChunks.getCell(col, row) == 1) {
+                    spawnEnemy(col * TILE_SIZE, row * TILE_SIZE);
+                }
+            }
+        }
+    }
+
+    // The chunk cache has a single focus, so spawns stream in around the first player only.
+    private void streamChunks() {
+        if (spawnChunks != null && !players.isEmpty()) {
+            Player player = players.get(0);
+            spawnChunks.focus((int) (player.getX() / TILE_SIZE), (int) (player.getY() / TILE_SIZE));
+        }
+    }
+
+    // Spawns an enemy, reusing a killed one when there is one.
+    public Enemy spawnEnemy(double x, double y) {
+        Enemy enemy;
+        if (enemyPool.isEmpty()) {
+            enemy = newEnemy(x, y);
+        } else {
+            enemy = enemyPool.remove(enemyPool.size() - 1);
+            enemy.respawn(x, y, GameConfig.ENEMY_HEALTH);
+        }
+        enemy.setId(nextEnemyId++);
+        enemies.add(enemy);
+        enemyIndex.insert(enemy, x, y, enemy.getWidth(), enemy.getHeight());
+        return enemy;
+    }
+
+    private static Enemy newEnemy(double x, double y) {
+        return new Enemy(
+                x, y,
+                GameConfig.ENEMY_HEALTH,
+                GameConfig.ENEMY_SPEED,
+                GameConfig.ENEMY_SHOOT_INTERVAL,
+                GameConfig.ENEMY_BULLET_SPEED,
+                GameConfig.ENEMY_BULLET_DAMAGE,
+                GameConfig.ENEMY_SHOOTING_RANGE
+        );
+    }
+
+    public void update(long now, InputState input) {
+        singleInput[0] = input;
+        update(now, singleInput);
+    }
+
+    // Advances one tick with inputs[i] driving the i-th player of getPlayers.
+    public void update(long now, InputState[] inputs) {
+        time = now;
+        profiler.beginTick();
+        savePreviousPositions();
+        profiler.endPhase(TickProfiler.Phase.SAVE_POSITIONS);
+        for (int i = 0; i < players.size(); i++) {
+            if (players.get(i).isAlive()) {
+                updatePlayer(players.get(i), inputs[i]);
+            }
+        }
+        profiler.endPhase(TickProfiler.Phase.PLAYER);
+        streamChunks();
+        profiler.endPhase(TickProfiler.Phase.STREAMING);
+        updateEnemies();
+        profiler.endPhase(TickProfiler.Phase.ENEMIES);
+        for (int i = 0; i < players.size(); i++) {
+            if (players.get(i).isAlive()) {
+                updateShooting(players.get(i), inputs[i], now);
+            }
+        }
+        profiler.endPhase(TickProfiler.Phase.PLAYER_SHOOTING);
+        updateEnemyShooting(now);
+        profiler.endPhase(TickProfiler.Phase.ENEMY_SHOOTING);
+        updateProjectiles(now);
+        profiler.endPhase(TickProfiler.Phase.PROJECTILES);
+        for (int i = 0; i < players.size(); i++) {
+            players.get(i).updateInvincibility(now);
+        }
+        profiler.endPhase(TickProfiler.Phase.INVINCIBILITY);
+        checkPlayerEnemyCollisions(now);
+        profiler.endPhase(TickProfiler.Phase.CONTACT);
+        profiler.endTick(enemies.size(), projectiles.size());
+        tick++;
+    }
+
+    private void savePreviousPositions() {
+        for (int i = 0; i < players.size(); i++) {
+            players.get(i).savePreviousPosition();
+        }
+        for (int i = 0; i < enemies.size(); i++) {
+            enemies.get(i).savePreviousPosition();
+        }
+        projectiles.savePreviousPositions();
+    }
+
+    private void updatePlayer(Player player, InputState input) {
+        if (input.consumeReload()) {
+            player.getWeapon().reload();
+            System.out.println("Weapon reloaded.");
+        }
+        double dx = 0, dy = 0;
+        if (input.isUp())    dy -= PLAYER_SPEED;
+        if (input.isDown())  dy += PLAYER_SPEED;
+        if (input.isLeft())  dx -= PLAYER_SPEED;
+        if (input.isRight()) dx += PLAYER_SPEED;
+
+        double playerX = player.getX();
+        double playerY = player.getY();
+        double newX = playerX + dx;
+        double newY = playerY + dy;
+
+        if (!collides(newX, playerY)) {
+            playerX = newX;
+        }
+        if (!collides(playerX, newY)) {
+            playerY = newY;
+        }
+
+        player.setPosition(clamp(playerX, 0, worldWidth - TILE_SIZE),
+                           clamp(playerY, 0, worldHeight - TILE_SIZE));
+    }
+
+    /**
+     * Plans the move of every enemy the AI scheduler picked for this tick
+     * from the positions at the start of the phase, then applies all of them
+     * at once. Planning only reads shared state, so large crowds are split
+     * across the AI pool; since no enemy sees another's new position the
+     * result is the same for any number of threads.
+     */
+    private void updateEnemies() {
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            if (player.isAlive()) {
+                navigators.get(i).setGoal((int) (player.getX() / TILE_SIZE), (int) (player.getY() / TILE_SIZE));
+            }
+        }
+        aiScheduler.schedule(tick, enemies, players);
+        int count = aiScheduler.getActiveCount();
+        if (nextEnemyPositions.length < 2 * count) {
+            nextEnemyPositions = new double[Math.max(2 * count, 2 * nextEnemyPositions.length)];
+        }
+        if (aiPool != null && count >= GameConfig.PARALLEL_AI_MIN_ENEMIES) {
+            aiPool.invoke(new PlanMovesTask(0, count));
+        } else {
+            planMoves(0, count);
+        }
+        for (int i = 0; i < count; i++) {
+            Enemy enemy = enemies.get(aiScheduler.getActive(i));
+            double x = nextEnemyPositions[2 * i];
+            double y = nextEnemyPositions[2 * i + 1];
+            enemyIndex.move(enemy, enemy.getX(), enemy.getY(), x, y, enemy.getWidth(), enemy.getHeight());
+            enemy.moveTo(x, y);
+        }
+    }
+
+    // Plans the scheduled enemies from index from to index to of this tick's active list.
+    private void planMoves(int from, int to) {
+        List<Enemy> nearby = plannerNeighbours.get();
+        for (int i = from; i < to; i++) {
+            Enemy enemy = enemies.get(aiScheduler.getActive(i));
+            int target = nearestPlayer(enemy);
+            if (target < 0) {
+                nextEnemyPositions[2 * i] = enemy.getX();
+                nextEnemyPositions[2 * i + 1] = enemy.getY();
+                continue;
+            }
+            Player player = players.get(target);
+            enemy.planMove(player.getX(), player.getY(), navigators.get(target), walls, enemyIndex, nearby,
+                           aiScheduler.getElapsed(i), nextEnemyPositions, i);
+        }
+    }
+
+    // Index of the living player closest to the enemy, or -1 if every player is dead.
+    private int nearestPlayer(Enemy enemy) {
+        int nearest = -1;
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            if (!player.isAlive()) continue;
+            double dx = player.getX() - enemy.getX();
+            double dy = player.getY() - enemy.getY();
+            double distanceSq = dx * dx + dy * dy;
+            if (distanceSq < best) {
+                best = distanceSq;
+                nearest = i;
+            }
+        }
+        return nearest;
+    }
+
+    // Splits a range of enemies in halves until it is small enough to plan on one thread.
+    private final class PlanMovesTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        PlanMovesTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GameConfig.PARALLEL_AI_BATCH) {
+                planMoves(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new PlanMovesTask(from, middle), new PlanMovesTask(middle, to));
+        }
+    }
+
+    private void updateShooting(Player player, InputState input, long now) {
+        if (input.isShooting()) {
+            player.getWeapon().shoot(
+                    projectiles,
+                    player.getX() + TILE_SIZE / 2.0,
+                    player.getY() + TILE_SIZE / 2.0,
+                    input.getAimX(), input.getAimY(), now
+            );
+        }
+    }
+
+    // Only enemies thinking this tick can shoot; the near tier covers the whole shooting range.
+    private void updateEnemyShooting(long now) {
+        for (int i = 0; i < aiScheduler.getActiveCount(); i++) {
+            Enemy enemy = enemies.get(aiScheduler.getActive(i));
+            int target = nearestPlayer(enemy);
+            if (target < 0) continue;
+            Player player = players.get(target);
+            enemy.tryShoot(
+                    projectiles,
+                    player.getX() + TILE_SIZE / 2.0,
+                    player.getY() + TILE_SIZE / 2.0, now
+            );
+        }
+    }
+
+    /**
+     * Moves every projectile, then tests the whole path it covered this
+     * tick rather than just where it ended up, so no speed or tick length
+     * lets it pass through a wall or a target: the first wall on the path
+     * is found with a DDA walk of the tile grid, and only targets the
+     * projectile reaches before that wall are hit. Spent projectiles are
+     * swap-removed, so the index only advances when the one in the current
+     * slot survives.
+     */
+    private void updateProjectiles(long now) {
+        projectiles.integrate();
+        final double size = ProjectileStore.SIZE;
+        for (int i = 0; i < projectiles.size(); ) {
+            double startX = projectiles.getPreviousX(i);
+            double startY = projectiles.getPreviousY(i);
+            double dx = projectiles.getX(i) - startX;
+            double dy = projectiles.getY(i) - startY;
+            double wall = TileCollision.sweep(walls, startX, startY, size, dx, dy, TILE_SIZE);
+            boolean spent;
+            if (projectiles.getOwner(i) == ProjectileStore.OWNER_PLAYER) {
+                spent = hitEnemy(startX, startY, size, dx, dy, wall, projectiles.getDamage(i));
+            } else {
+                spent = hitPlayer(startX, startY, size, dx, dy, wall, projectiles.getDamage(i), now);
+            }
+            if (spent || wall != SpatialGrid.NO_HIT || isOutOfWorld(projectiles.getX(i), projectiles.getY(i))) {
+                projectiles.remove(i);
+            } else {
+                i++;
+            }
+        }
+        if (killedThisTick > 0) {
+            removeKilledEnemies();
+        }
+    }
+
+    /**
+     * Moves enemies killed this tick from the enemy list to the pool in one
+     * pass that keeps the survivors in order, so nothing after this phase
+     * iterates over dead enemies.
+     */
+    private void removeKilledEnemies() {
+        int kept = 0;
+        for (int i = 0; i < enemies.size(); i++) {
+            Enemy enemy = enemies.get(i);
+            if (enemy.isAlive()) {
+                enemies.set(kept++, enemy);
+            } else {
+                enemyPool.add(enemy);
+            }
+        }
+        enemies.subList(kept, enemies.size()).clear();
+        killedThisTick = 0;
+    }
+
+    /**
+     * Damages the first living enemy the projectile box meets while moving
+     * by (dx, dy), if it meets it before the fraction limit of the move;
+     * returns whether one was hit.
+     */
+    private boolean hitEnemy(double x, double y, double size, double dx, double dy, double limit, double damage) {
+        nearbyEnemies.clear();
+        enemyIndex.query(Math.min(x, x + dx), Math.min(y, y + dy), size + Math.abs(dx), size + Math.abs(dy),
+                         nearbyEnemies);
+        Enemy target = null;
+        for (int i = 0; i < nearbyEnemies.size(); i++) {
+            Enemy enemy = nearbyEnemies.get(i);
+            if (enemy.isAlive()) {
+                double t = SpatialGrid.sweep(x, y, size, size, dx, dy,
+                                             enemy.getX(), enemy.getY(), enemy.getWidth(), enemy.getHeight());
+                if (t < limit) {
+                    limit = t;
+                    target = enemy;
+                }
+            }
+        }
+        if (target == null) {
+            return false;
+        }
+        target.takeDamage(damage);
+        if (!target.isAlive()) {
+            enemyIndex.remove(target, target.getX(), target.getY(), target.getWidth(), target.getHeight());
+            killedThisTick++;
+        }
+        return true;
+    }
+
+    // Same as hitEnemy, for enemy projectiles against the players.
+    private boolean hitPlayer(double x, double y, double size, double dx, double dy, double limit,
+                              double damage, long now) {
+        Player target = null;
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            if (player.isAlive()) {
+                double t = SpatialGrid.sweep(x, y, size, size, dx, dy,
+                                             player.getX(), player.getY(), player.getWidth(), player.getHeight());
+                if (t < limit) {
+                    limit = t;
+                    target = player;
+                }
+            }
+        }
+        if (target == null) {
+            return false;
+        }
+        if (target.hit(damage, now)) {
+            System.out.println("Player hit by enemy! Health: " + target.getHealth());
+        }
+        return true;
+    }
+
+    private void checkPlayerEnemyCollisions(long now) {
+        for (int i = 0; i < players.size(); i++) {
+            checkEnemyContact(players.get(i), now);
+        }
+    }
+
+    private void checkEnemyContact(Player player, long now) {
+        if (player.isAlive() && !player.isInvincible()) {
+            nearbyEnemies.clear();
+            enemyIndex.query(player.getX(), player.getY(), player.getWidth(), player.getHeight(), nearbyEnemies);
+            for (int i = 0; i < nearbyEnemies.size(); i++) {
+                Enemy enemy = nearbyEnemies.get(i);
+                if (enemy.isAlive() && enemy.intersects(player)) {
+                    player.hit(ENEMY_DAMAGE, now);
+                    System.out.println("Player hit by enemy! Health: " + player.getHealth());
+                    break;
+                }
+            }
+        }
+    }
+
+    private boolean isOutOfWorld(double x, double y) {
+        return x < 0 || x > worldWidth || y < 0 || y > worldHeight;
+    }
+
+    private boolean collides(double x, double y) {
+        return TileCollision.collides(walls, x, y, TILE_SIZE, TILE_SIZE, TILE_SIZE);
+    }
+
+    private double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    // Bytes writeState needs for the world as it is now.
+    public int getStateSize() {
+        return 2 * Long.BYTES + 4 * Integer.BYTES + (spawnedChunks == null ? 0 : spawnedChunks.length)
+                + walls.getStateSize() + Integer.BYTES + players.size() * Player.STATE_BYTES
+                + Integer.BYTES + enemies.size() * Enemy.STATE_BYTES + projectiles.getStateSize();
+    }
+
+    /**
+     * Writes the whole world between two ticks: clock, walls, streamed
+     * chunks, players, living enemies and projectiles. Everything else (the
+     * navigators, caches, the enemy index) is rebuilt from these on restore.
+     */
+    public void writeState(ByteBuffer buffer) {
+        buffer.putLong(tick).putLong(time).putInt(nextEnemyId);
+        buffer.putInt(walls.getWidth()).putInt(walls.getHeight());
+        buffer.putInt(spawnedChunks == null ? -1 : spawnedChunks.length);
+        if (spawnedChunks != null) {
+            for (boolean spawned : spawnedChunks) {
+                buffer.put((byte) (spawned ? 1 : 0));
+            }
+        }
+        walls.writeState(buffer);
+        buffer.putInt(players.size());
+        for (int i = 0; i < players.size(); i++) {
+            players.get(i).writeState(buffer);
+        }
+        buffer.putInt(enemies.size());
+        for (int i = 0; i < enemies.size(); i++) {
+            enemies.get(i).writeState(buffer);
+        }
+        projectiles.writeState(buffer);
+    }
+
+    /**
+     * Replaces the world with one written by writeState for the same level.
+     * The buffer must end where the snapshot does. A snapshot of another
+     * level, or one whose counts do not add up to its length, is refused
+     * with an IllegalArgumentException before anything changes.
+     */
+    public void readState(ByteBuffer buffer) {
+        checkState(buffer);
+        long savedTick = buffer.getLong();
+        long savedTime = buffer.getLong();
+        int savedEnemyId = buffer.getInt();
+        // The level size, already checked.
+        buffer.getInt();
+        buffer.getInt();
+        int chunks = buffer.getInt();
+        tick = savedTick;
+        time = savedTime;
+        nextEnemyId = savedEnemyId;
+        for (int i = 0; i < chunks; i++) {
+            spawnedChunks[i] = buffer.get() != 0;
+        }
+        walls.readState(buffer);
+        int playerCount = buffer.getInt();
+        while (players.size() > playerCount) {
+            removePlayer(players.get(players.size() - 1));
+        }
+        while (players.size() < playerCount) {
+            addPlayer();
+        }
+        for (int i = 0; i < playerCount; i++) {
+            players.get(i).readState(buffer);
+        }
+        for (int i = 0; i < enemies.size(); i++) {
+            Enemy enemy = enemies.get(i);
+            enemyIndex.remove(enemy, enemy.getX(), enemy.getY(), enemy.getWidth(), enemy.getHeight());
+            enemyPool.add(enemy);
+        }
+        enemies.clear();
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            Enemy enemy = enemyPool.isEmpty() ? newEnemy(0, 0) : enemyPool.remove(enemyPool.size() - 1);
+            enemy.readState(buffer);
+            enemies.add(enemy);
+            enemyIndex.insert(enemy, enemy.getX(), enemy.getY(), enemy.getWidth(), enemy.getHeight());
+        }
+        projectiles.readState(buffer);
+        killedThisTick = 0;
+        // Chunks already paged in will not report again, so spawn those the saved world had not reached yet.
+        if (spawnChunks != null) {
+            MapFile map = spawnChunks.getMap();
+            for (int chunkY = 0; chunkY < map.getChunkRows(); chunkY++) {
+                for (int chunkX = 0; chunkX < map.getChunkCols(); chunkX++) {
+                    if (spawnChunks.isResident(chunkX, chunkY)) {
+                        spawnChunkEnemies(chunkX, chunkY);
+                    }
+                }
+            }
+        }
+    }
+
+    // Walks the level header and the counts of a snapshot with absolute reads, so nothing is consumed.
+    private void checkState(ByteBuffer buffer) {
+        int start = buffer.position();
+        long offset = start + 2L * Long.BYTES + 4 * Integer.BYTES;
+        if (offset > buffer.limit()) {
+            throw new IllegalArgumentException("Snapshot is truncated");
+        }
+        int width = buffer.getInt(start + 2 * Long.BYTES + Integer.BYTES);
+        int height = buffer.getInt(start + 2 * Long.BYTES + 2 * Integer.BYTES);
+        int chunks = buffer.getInt(start + 2 * Long.BYTES + 3 * Integer.BYTES);
+        if (width != walls.getWidth() || height != walls.getHeight()
+                || chunks != (spawnedChunks == null ? -1 : spawnedChunks.length)) {
+            throw new IllegalArgumentException("Snapshot is of a different level");
+        }
+        offset += Math.max(0, chunks) + walls.getStateSize();
+        int playerCount = countAt(buffer, offset, "players");
+        offset += Integer.BYTES + (long) playerCount * Player.STATE_BYTES;
+        int enemyCount = countAt(buffer, offset, "enemies");
+        offset += Integer.BYTES + (long) enemyCount * Enemy.STATE_BYTES;
+        int projectileCount = countAt(buffer, offset, "projectiles");
+        if (projectileCount > projectiles.getCapacity()) {
+            throw new IllegalArgumentException("Snapshot holds " + projectileCount + " projectiles, capacity is "
+                    + projectiles.getCapacity());
+        }
+        offset += Integer.BYTES + (long) projectileCount * ProjectileStore.STATE_BYTES;
+        if (offset != buffer.limit()) {
+            throw new IllegalArgumentException("Snapshot counts add up to " + (offset - start) + " bytes, it has "
+                    + (buffer.limit() - start));
+        }
+    }
+
+    private static int countAt(ByteBuffer buffer, long offset, String what) {
+        if (offset + Integer.BYTES > buffer.limit()) {
+            throw new IllegalArgumentException("Snapshot is truncated before its " + what);
+        }
+        int count = buffer.getInt((int) offset);
+        if (count < 0) {
+            throw new IllegalArgumentException("Snapshot holds " + count + " " + what);
+        }
+        return count;
+    }
+
+    // True once no player is left alive.
+    public boolean isGameOver() {
+        for (int i = 0; i < players.size(); i++) {
+            if (players.get(i).isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Simulation time of the latest tick.
+    public long getTime() {
+        return time;
+    }
+
+    public TileGrid getWalls() {
+        return walls;
+    }
+
+    /**
+     * Sets the pool enemy moves are planned on, or null to plan them on the
+     * calling thread. The outcome is the same either way.
+     */
+    public void setAiPool(ForkJoinPool aiPool) {
+        this.aiPool = aiPool;
+    }
+
+    // The first player's navigator.
+    public Navigator getNavigator() {
+        return navigators.get(0);
+    }
+
+    public AiScheduler getAiScheduler() {
+        return aiScheduler;
+    }
+
+    public TickProfiler getProfiler() {
+        return profiler;
+    }
+
+    // The first player, the only one outside server mode.
+    public Player getPlayer() {
+        return players.get(0);
+    }
+
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    // Living enemies only; killed ones leave the list at the end of the tick they die in.
+    public List<Enemy> getEnemies() {
+        return enemies;
+    }
+
+    // Killed enemies waiting to be reused by spawnEnemy.
+    public int getPooledEnemyCount() {
+        return enemyPool.size();
+    }
+
+    public ProjectileStore getProjectiles() {
+        return projectiles;
+    }
+}
@@ -0,0 +1,68 @@
+package com.rpg.simulation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event committed by TickProfiler once per simulation tick. Record with
+ * e.g. -XX:StartFlightRecording and look for com.rpg.Tick.
+ */
+@Name("com.rpg.Tick")
+@Label("Simulation Tick")
+@Category("RPG")
+@Description("Phase timings and entity counts of one simulation tick")
+@StackTrace(false)
+class TickEvent extends jdk.jfr.Event {
+    @Label("Tick")
+    long tick;
+
+    @Label("Tick Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long tickTime;
+
+    @Label("Save Positions")
+    @Timespan(Timespan.NANOSECONDS)
+    long savePositionsTime;
+
+    @Label("Player")
+    @Timespan(Timespan.NANOSECONDS)
+    long playerTime;
+
+    @Label("Streaming")
+    @Timespan(Timespan.NANOSECONDS)
+    long streamingTime;
+
+    @Label("Enemies")
+    @Timespan(Timespan.NANOSECONDS)
+    long enemiesTime;
+
+    @Label("Player Shooting")
+    @Timespan(Timespan.NANOSECONDS)
+    long playerShootingTime;
+
+    @Label("Enemy Shooting")
+    @Timespan(Timespan.NANOSECONDS)
+    long enemyShootingTime;
+
+    @Label("Projectiles")
+    @Timespan(Timespan.NANOSECONDS)
+    long projectilesTime;
+
+    @Label("Invincibility")
+    @Timespan(Timespan.NANOSECONDS)
+    long invincibilityTime;
+
+    @Label("Contact")
+    @Timespan(Timespan.NANOSECONDS)
+    long contactTime;
+
+    @Label("Enemy Count")
+    int enemies;
+
+    @Label("Projectile Count")
+    int projectiles;
+}
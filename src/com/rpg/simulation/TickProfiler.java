@@ -0,0 +1,105 @@
+package com.rpg.simulation;
+
+/**
+ * Times each phase of Simulation.update with System.nanoTime and feeds the
+ * durations into one LatencyHistogram per phase plus one for the whole
+ * tick. A tick costs ten clock reads and no allocation, far below 1% of a
+ * 16 ms frame. When a JFR recording has TickEvent enabled, every tick is
+ * also committed as an event carrying the same phase timings.
+ */
+public class TickProfiler {
+    public enum Phase {
+        SAVE_POSITIONS("save"),
+        PLAYER("player"),
+        STREAMING("stream"),
+        ENEMIES("enemies"),
+        PLAYER_SHOOTING("shoot"),
+        ENEMY_SHOOTING("enemy shoot"),
+        PROJECTILES("projectiles"),
+        INVINCIBILITY("invincible"),
+        CONTACT("contact");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+    private final LatencyHistogram tickHistogram = new LatencyHistogram();
+    private final long[] lastDurations = new long[PHASES.length];
+    private long tickStart;
+    private long phaseStart;
+    private long ticks;
+
+    public TickProfiler() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public void beginTick() {
+        tickStart = System.nanoTime();
+        phaseStart = tickStart;
+    }
+
+    // Closes the phase that started when the previous phase (or the tick) ended.
+    public void endPhase(Phase phase) {
+        long now = System.nanoTime();
+        long duration = now - phaseStart;
+        lastDurations[phase.ordinal()] = duration;
+        histograms[phase.ordinal()].record(duration);
+        phaseStart = now;
+    }
+
+    public void endTick(int enemies, int projectiles) {
+        long duration = phaseStart - tickStart;
+        tickHistogram.record(duration);
+        ticks++;
+        // Unless a recording enables it, the event never escapes and the JIT removes the allocation.
+        TickEvent event = new TickEvent();
+        if (event.shouldCommit()) {
+            event.tick = ticks;
+            event.tickTime = duration;
+            event.savePositionsTime = lastDurations[Phase.SAVE_POSITIONS.ordinal()];
+            event.playerTime = lastDurations[Phase.PLAYER.ordinal()];
+            event.streamingTime = lastDurations[Phase.STREAMING.ordinal()];
+            event.enemiesTime = lastDurations[Phase.ENEMIES.ordinal()];
+            event.playerShootingTime = lastDurations[Phase.PLAYER_SHOOTING.ordinal()];
+            event.enemyShootingTime = lastDurations[Phase.ENEMY_SHOOTING.ordinal()];
+            event.projectilesTime = lastDurations[Phase.PROJECTILES.ordinal()];
+            event.invincibilityTime = lastDurations[Phase.INVINCIBILITY.ordinal()];
+            event.contactTime = lastDurations[Phase.CONTACT.ordinal()];
+            event.enemies = enemies;
+            event.projectiles = projectiles;
+            event.commit();
+        }
+    }
+
+    public LatencyHistogram getHistogram(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    public LatencyHistogram getTickHistogram() {
+        return tickHistogram;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    // Clears the histograms, e.g. so an overlay shows only the most recent window.
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        tickHistogram.reset();
+    }
+}
@@ -0,0 +1,116 @@
+package com.rpg.util;
+
+import com.rpg.config.TileGrid;
+import java.util.Arrays;
+
+/**
+ * A* search over the level's wall grid, using the Manhattan heuristic on a
+ * 4-connected grid and the octile heuristic when diagonal moves are allowed.
+ * Like BFSPathfinding, an instance reuses its flat buffers across queries and
+ * stamps cells with a search epoch instead of clearing them.
+ */
+public class AStarPathfinding implements Pathfinder {
+    private final boolean diagonal;
+    private final int[][] directions;
+    private int rows;
+    private int cols;
+    private int[] seen;
+    private int[] closed;
+    private int[] cost;
+    private int[] parent;
+    private IndexHeap open;
+    private int epoch;
+
+    public AStarPathfinding(int cols, int rows, boolean diagonal) {
+        this.diagonal = diagonal;
+        this.directions = diagonal ? GridSearch.ALL_DIRECTIONS : GridSearch.STRAIGHT_DIRECTIONS;
+        allocate(cols, rows);
+    }
+
+    @Override
+    public int findPath(TileGrid grid, int startX, int startY, int goalX, int goalY, int[] out) {
+        if (!GridSearch.isOpen(grid, startX, startY) || !GridSearch.isOpen(grid, goalX, goalY)) {
+            return 0;
+        }
+        if (grid.getHeight() != rows || grid.getWidth() != cols) {
+            allocate(grid.getWidth(), grid.getHeight());
+        }
+        int stamp = nextEpoch();
+        int start = startY * cols + startX;
+        int goal = goalY * cols + goalX;
+        open.clear();
+        seen[start] = stamp;
+        cost[start] = 0;
+        parent[start] = start;
+        open.push(start, GridSearch.heuristic(goalX - startX, goalY - startY, diagonal));
+        while (!open.isEmpty()) {
+            int current = open.pop();
+            if (current == goal) {
+                return reconstructPath(start, goal, out);
+            }
+            closed[current] = stamp;
+            int cx = current % cols;
+            int cy = current / cols;
+            for (int[] dir : directions) {
+                if (!GridSearch.canStep(grid, cx, cy, dir[0], dir[1])) {
+                    continue;
+                }
+                int nx = cx + dir[0];
+                int ny = cy + dir[1];
+                int neighbour = ny * cols + nx;
+                if (closed[neighbour] == stamp) {
+                    continue;
+                }
+                int step = dir[0] != 0 && dir[1] != 0 ? GridSearch.DIAGONAL_COST : GridSearch.STRAIGHT_COST;
+                int newCost = cost[current] + step;
+                if (seen[neighbour] != stamp || newCost < cost[neighbour]) {
+                    seen[neighbour] = stamp;
+                    cost[neighbour] = newCost;
+                    parent[neighbour] = current;
+                    open.push(neighbour, newCost + GridSearch.heuristic(goalX - nx, goalY - ny, diagonal));
+                }
+            }
+        }
+        return 0;
+    }
+
+    private int reconstructPath(int start, int goal, int[] out) {
+        int length = 1;
+        for (int cell = goal; cell != start; cell = parent[cell]) {
+            length++;
+        }
+        int index = length - 1;
+        for (int cell = goal; ; cell = parent[cell]) {
+            if (index < out.length) {
+                out[index] = cell;
+            }
+            if (cell == start) {
+                break;
+            }
+            index--;
+        }
+        return length;
+    }
+
+    private int nextEpoch() {
+        epoch++;
+        if (epoch == 0) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(closed, 0);
+            epoch = 1;
+        }
+        return epoch;
+    }
+
+    private void allocate(int cols, int rows) {
+        this.rows = rows;
+        this.cols = cols;
+        int cells = rows * cols;
+        seen = new int[cells];
+        closed = new int[cells];
+        cost = new int[cells];
+        parent = new int[cells];
+        open = new IndexHeap(cells);
+        epoch = 0;
+    }
+}
@@ -1,77 +1,150 @@
 package com.rpg.util;
 
+import com.rpg.config.TileGrid;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
 
-public class BFSPathfinding {
-    private static final int[][] DIRECTIONS = {
-        {0, -1},
-        {1, 0},
-        {0, 1},
-        {-1, 0}
-    };
+/**
+ * Breadth-first search over the level's wall grid.
+ * An instance owns flat, preallocated search buffers and reuses them for every
+ * query: visited cells are stamped with a per-search epoch so nothing has to be
+ * cleared, and the frontier is a ring buffer of packed cell indices
+ * (y * columns + x). The static findPath is kept as a thin wrapper.
+ * With diagonal moves enabled every step still counts as one, so paths are
+ * shortest in steps rather than in distance.
+ */
+public class BFSPathfinding implements Pathfinder {
+    private static final ThreadLocal<BFSPathfinding> SHARED =
+            ThreadLocal.withInitial(() -> new BFSPathfinding(1, 1, false));
 
-    public static List<int[]> findPath(int[][] matrix, int startX, int startY, int goalX, int goalY) {
-        int rows = matrix.length;
-        int cols = matrix[0].length;
-        if (!isValidTile(startX, startY, rows, cols) || !isValidTile(goalX, goalY, rows, cols)) {
-            return Collections.emptyList();
-        }
-        if (matrix[startY][startX] == 1 || matrix[goalY][goalX] == 1) {
-            return Collections.emptyList();
-        }
-        boolean[][] visited = new boolean[rows][cols];
-        int[][] parent = new int[rows][cols];
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                parent[i][j] = -1;
-            }
-        }
+    private final int[][] directions;
+
+    private int rows;
+    private int cols;
+    private int[] visited;
+    private int[] parent;
+    private int[] queue;
+    private int queueMask;
+    private int[] pathBuffer;
+    private int epoch;
 
-        Queue<int[]> queue = new LinkedList<>();
-        queue.offer(new int[] {startX, startY});
-        visited[startY][startX] = true;
-        while (!queue.isEmpty()) {
-            int[] current = queue.poll();
-            int cx = current[0];
-            int cy = current[1];
-            if (cx == goalX && cy == goalY) {
-                return reconstructPath(parent, startX, startY, goalX, goalY, cols);
+    public BFSPathfinding(int cols, int rows) {
+        this(cols, rows, false);
+    }
+
+    public BFSPathfinding(int cols, int rows, boolean diagonal) {
+        this.directions = diagonal ? GridSearch.ALL_DIRECTIONS : GridSearch.STRAIGHT_DIRECTIONS;
+        allocate(cols, rows);
+    }
+
+    /**
+     * Searches from (startX, startY) to (goalX, goalY) and writes the packed
+     * cell indices of the path, start first, into out. If out is shorter than
+     * the path only its first out.length cells are written, so a caller that
+     * only needs the next step can pass an array of two.
+     *
+     * @return the number of cells on the path including start and goal, or 0 if there is none
+     */
+    @Override
+    public int findPath(TileGrid grid, int startX, int startY, int goalX, int goalY, int[] out) {
+        if (grid.isWall(startX, startY) || grid.isWall(goalX, goalY)) {
+            return 0;
+        }
+        int cols = grid.getWidth();
+        fitTo(grid.getHeight(), cols);
+        int stamp = nextEpoch();
+        int start = startY * cols + startX;
+        int goal = goalY * cols + goalX;
+        int head = 0;
+        int tail = 0;
+        queue[tail++ & queueMask] = start;
+        visited[start] = stamp;
+        while (head != tail) {
+            int current = queue[head++ & queueMask];
+            if (current == goal) {
+                return reconstructPath(start, goal, out);
             }
-            for (int[] dir : DIRECTIONS) {
+            int cx = current % cols;
+            int cy = current / cols;
+            for (int[] dir : directions) {
                 int nx = cx + dir[0];
                 int ny = cy + dir[1];
-
-                if (isValidTile(nx, ny, rows, cols) && !visited[ny][nx] && matrix[ny][nx] == 0) {
-                    visited[ny][nx] = true;
-                    parent[ny][nx] = cy * cols + cx;
-                    queue.offer(new int[] {nx, ny});
+                if (GridSearch.canStep(grid, cx, cy, dir[0], dir[1])) {
+                    int neighbour = ny * cols + nx;
+                    if (visited[neighbour] != stamp) {
+                        visited[neighbour] = stamp;
+                        parent[neighbour] = current;
+                        queue[tail++ & queueMask] = neighbour;
+                    }
                 }
             }
         }
-        return Collections.emptyList();
+        return 0;
     }
 
-    private static List<int[]> reconstructPath(int[][] parent, int startX, int startY, int goalX, int goalY, int cols) {
-        List<int[]> path = new ArrayList<>();
-        int gx = goalX;
-        int gy = goalY;
-        while (!(gx == startX && gy == startY)) {
-            path.add(new int[] {gx, gy});
-            int p = parent[gy][gx];
-            gy = p / cols;
-            gx = p % cols;
+    public static List<int[]> findPath(TileGrid grid, int startX, int startY, int goalX, int goalY) {
+        BFSPathfinding pathfinder = SHARED.get();
+        pathfinder.fitTo(grid.getHeight(), grid.getWidth());
+        int length = pathfinder.findPath(grid, startX, startY, goalX, goalY, pathfinder.pathBuffer);
+        if (length == 0) {
+            return Collections.emptyList();
+        }
+        int cols = grid.getWidth();
+        List<int[]> path = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            int cell = pathfinder.pathBuffer[i];
+            path.add(new int[] {cell % cols, cell / cols});
         }
-        path.add(new int[] {startX, startY});
-        Collections.reverse(path);
         return path;
     }
 
-    private static boolean isValidTile(int x, int y, int rows, int cols) {
-        return x >= 0 && x < cols && y >= 0 && y < rows;
+    private int reconstructPath(int start, int goal, int[] out) {
+        int length = 1;
+        for (int cell = goal; cell != start; cell = parent[cell]) {
+            length++;
+        }
+        // Walk back from the goal, only storing the cells that fit in out.
+        int index = length - 1;
+        for (int cell = goal; ; cell = parent[cell]) {
+            if (index < out.length) {
+                out[index] = cell;
+            }
+            if (cell == start) {
+                break;
+            }
+            index--;
+        }
+        return length;
+    }
+
+    private int nextEpoch() {
+        epoch++;
+        if (epoch == 0) {
+            // Stamps wrapped around: forget every old stamp once.
+            Arrays.fill(visited, 0);
+            epoch = 1;
+        }
+        return epoch;
     }
-}
 
+    private void fitTo(int rows, int cols) {
+        if (rows != this.rows || cols != this.cols) {
+            allocate(cols, rows);
+        }
+    }
+
+    private void allocate(int cols, int rows) {
+        this.rows = rows;
+        this.cols = cols;
+        int cells = rows * cols;
+        this.visited = new int[cells];
+        this.parent = new int[cells];
+        this.pathBuffer = new int[cells];
+        // Every cell is queued at most once, so a power-of-two ring this size never overflows.
+        this.queue = new int[Integer.highestOneBit(Math.max(1, cells - 1)) << 1];
+        this.queueMask = queue.length - 1;
+        this.epoch = 0;
+    }
+}
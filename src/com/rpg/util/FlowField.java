@@ -0,0 +1,180 @@
+package com.rpg.util;
+
+import com.rpg.config.TileGrid;
+
+/**
+ * Flow field flooded outward from a single goal tile.
+ * Every reachable tile stores the next tile on a shortest path to the goal,
+ * so any number of chasers share one flood and read their step in O(1).
+ * The field is only rebuilt when the goal moves to another tile.
+ * A 4-connected field is a plain BFS; with diagonal moves it becomes a
+ * Dijkstra map with octile costs so chasers do not zig-zag.
+ * On large levels the field can be limited to a window of tiles centred on
+ * the goal: only the window is flooded and stored, paths are only found
+ * inside it, and tiles outside it read as unreachable.
+ */
+public class FlowField implements Navigator {
+    private final TileGrid grid;
+    private final boolean diagonal;
+    private final int reach;
+    // The window, in tiles of the grid: its size is fixed, its origin follows the goal.
+    private final int rows;
+    private final int cols;
+    private int originX;
+    private int originY;
+    private final int[] distance;
+    private final int[] next;
+    private final int[] queue;
+    private final IndexHeap heap;
+    private int goalX = -1;
+    private int goalY = -1;
+    private int version;
+
+    public FlowField(TileGrid grid) {
+        this(grid, false);
+    }
+
+    public FlowField(TileGrid grid, boolean diagonal) {
+        this(grid, diagonal, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param reach tiles the window extends from the goal in each direction;
+     *              the field covers the whole grid when it fits in the window
+     */
+    public FlowField(TileGrid grid, boolean diagonal, int reach) {
+        this.grid = grid;
+        this.diagonal = diagonal;
+        this.reach = reach;
+        this.rows = (int) Math.min(grid.getHeight(), 2L * reach + 1);
+        this.cols = (int) Math.min(grid.getWidth(), 2L * reach + 1);
+        this.distance = new int[rows * cols];
+        this.next = new int[rows * cols];
+        this.queue = diagonal ? null : new int[rows * cols];
+        this.heap = diagonal ? new IndexHeap(rows * cols) : null;
+        clear();
+    }
+
+    /**
+     * Points the field at the given goal tile. Does nothing if the goal is
+     * the same tile as last time and no wall has changed since.
+     */
+    @Override
+    public void setGoal(int goalX, int goalY) {
+        if (goalX == this.goalX && goalY == this.goalY && grid.getVersion() == version) {
+            return;
+        }
+        this.goalX = goalX;
+        this.goalY = goalY;
+        this.version = grid.getVersion();
+        originX = clamp(goalX - reach, grid.getWidth() - cols);
+        originY = clamp(goalY - reach, grid.getHeight() - rows);
+        rebuild();
+    }
+
+    @Override
+    public int nextStep(int x, int y) {
+        if (!isValidTile(x, y)) {
+            return -1;
+        }
+        int step = next[(y - originY) * cols + x - originX];
+        if (step < 0) {
+            return -1;
+        }
+        return grid.index(originX + step % cols, originY + step / cols);
+    }
+
+    // Steps to the goal (cost in tenths of a tile with diagonals), or -1 if the tile cannot reach it.
+    public int getDistance(int x, int y) {
+        if (!isValidTile(x, y)) {
+            return -1;
+        }
+        return distance[(y - originY) * cols + x - originX];
+    }
+
+    @Override
+    public int getColumns() {
+        return grid.getWidth();
+    }
+
+    // Indices below are of the window, not of the grid.
+    private void rebuild() {
+        clear();
+        if (grid.isWall(goalX, goalY)) {
+            return;
+        }
+        int goal = (goalY - originY) * cols + goalX - originX;
+        distance[goal] = 0;
+        if (diagonal) {
+            floodWeighted(goal);
+        } else {
+            flood(goal);
+        }
+    }
+
+    private void flood(int goal) {
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = goal;
+        while (head < tail) {
+            int current = queue[head++];
+            int cx = current % cols;
+            int cy = current / cols;
+            for (int[] dir : GridSearch.STRAIGHT_DIRECTIONS) {
+                if (isInWindow(cx + dir[0], cy + dir[1])
+                        && GridSearch.canStep(grid, originX + cx, originY + cy, dir[0], dir[1])) {
+                    int neighbour = (cy + dir[1]) * cols + cx + dir[0];
+                    if (distance[neighbour] < 0) {
+                        distance[neighbour] = distance[current] + 1;
+                        next[neighbour] = current;
+                        queue[tail++] = neighbour;
+                    }
+                }
+            }
+        }
+    }
+
+    private void floodWeighted(int goal) {
+        heap.clear();
+        heap.push(goal, 0);
+        while (!heap.isEmpty()) {
+            int current = heap.pop();
+            int cx = current % cols;
+            int cy = current / cols;
+            for (int[] dir : GridSearch.ALL_DIRECTIONS) {
+                // Corner rules are symmetric, so stepping goal-wards is legal whenever this step is.
+                if (!isInWindow(cx + dir[0], cy + dir[1])
+                        || !GridSearch.canStep(grid, originX + cx, originY + cy, dir[0], dir[1])) {
+                    continue;
+                }
+                int neighbour = (cy + dir[1]) * cols + cx + dir[0];
+                int step = dir[0] != 0 && dir[1] != 0 ? GridSearch.DIAGONAL_COST : GridSearch.STRAIGHT_COST;
+                int newDistance = distance[current] + step;
+                if (distance[neighbour] < 0 || newDistance < distance[neighbour]) {
+                    distance[neighbour] = newDistance;
+                    next[neighbour] = current;
+                    heap.push(neighbour, newDistance);
+                }
+            }
+        }
+    }
+
+    private void clear() {
+        for (int i = 0; i < distance.length; i++) {
+            distance[i] = -1;
+            next[i] = -1;
+        }
+    }
+
+    private boolean isValidTile(int x, int y) {
+        return isInWindow(x - originX, y - originY);
+    }
+
+    private boolean isInWindow(int x, int y) {
+        return x >= 0 && x < cols && y >= 0 && y < rows;
+    }
+
+    private static int clamp(int value, int max) {
+        return Math.max(0, Math.min(max, value));
+    }
+}
@@ -0,0 +1,90 @@
+package com.rpg.util;
+
+import com.rpg.config.TileGrid;
+
+/**
+ * Grid helpers shared by the Pathfinder implementations.
+ * Move costs are scaled by ten so octile distances stay in integers.
+ */
+final class GridSearch {
+    static final int STRAIGHT_COST = 10;
+    static final int DIAGONAL_COST = 14;
+
+    static final int[][] STRAIGHT_DIRECTIONS = {
+        {0, -1},
+        {1, 0},
+        {0, 1},
+        {-1, 0}
+    };
+
+    static final int[][] ALL_DIRECTIONS = {
+        {0, -1},
+        {1, 0},
+        {0, 1},
+        {-1, 0},
+        {1, -1},
+        {1, 1},
+        {-1, 1},
+        {-1, -1}
+    };
+
+    private GridSearch() {
+    }
+
+    static boolean isOpen(TileGrid grid, int x, int y) {
+        return !grid.isWall(x, y);
+    }
+
+    /**
+     * A move is allowed if the target is open and, for diagonal moves, both
+     * tiles beside the corner are open too, so a tile-sized box never clips a wall.
+     */
+    static boolean canStep(TileGrid grid, int x, int y, int dx, int dy) {
+        if (!isOpen(grid, x + dx, y + dy)) {
+            return false;
+        }
+        return dx == 0 || dy == 0 || (isOpen(grid, x + dx, y) && isOpen(grid, x, y + dy));
+    }
+
+    static int heuristic(int dx, int dy, boolean diagonal) {
+        dx = Math.abs(dx);
+        dy = Math.abs(dy);
+        if (!diagonal) {
+            return STRAIGHT_COST * (dx + dy);
+        }
+        return STRAIGHT_COST * (dx + dy) + (DIAGONAL_COST - 2 * STRAIGHT_COST) * Math.min(dx, dy);
+    }
+
+    /**
+     * Expands a chain of waypoints, each reached from the previous one by a
+     * straight or 45-degree line, into the full cell sequence written to out.
+     * Waypoints are given goal first in waypoints[0..count).
+     *
+     * @return the number of cells on the expanded path
+     */
+    static int expand(int[] waypoints, int count, int cols, int[] out) {
+        int index = 0;
+        int cell = waypoints[count - 1];
+        if (index < out.length) {
+            out[index] = cell;
+        }
+        index++;
+        for (int w = count - 2; w >= 0; w--) {
+            int target = waypoints[w];
+            int x = cell % cols;
+            int y = cell / cols;
+            int dx = Integer.signum(target % cols - x);
+            int dy = Integer.signum(target / cols - y);
+            while (cell != target) {
+                x += dx;
+                y += dy;
+                cell = y * cols + x;
+                if (index < out.length) {
+                    out[index] = cell;
+                }
+                index++;
+            }
+        }
+        return index;
+    }
+}
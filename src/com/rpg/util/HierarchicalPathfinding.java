@@ -0,0 +1,475 @@
+package com.rpg.util;
+
+import com.rpg.config.TileGrid;
+import java.util.Arrays;
+
+/**
+ * Hierarchical pathfinding (HPA*). The grid is cut into square clusters;
+ * wherever open tiles face each other across a cluster border an entrance
+ * node is placed on both sides, and the cost of walking between every two
+ * nodes of a cluster is precomputed. A query connects start and goal to
+ * the nodes of their own clusters with two cluster-sized searches and then
+ * runs A* over the small graph of entrance nodes, so long routes cost about
+ * the same as short ones. Paths are near-optimal rather than shortest.
+ * The abstract path is only turned back into tiles for as many cells as
+ * the caller's out array can hold, so asking for the next step refines a
+ * single cluster. The abstraction is rebuilt whenever the walls change.
+ */
+public class HierarchicalPathfinding implements Pathfinder {
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+
+    private static final int NONE = -1;
+    // Parent of nodes reached straight from the start tile.
+    private static final int START = -2;
+
+    private final int clusterSize;
+    private final boolean diagonal;
+    private final int[][] directions;
+    private final LocalSearch startSearch;
+    private final LocalSearch goalSearch;
+    private final LocalSearch refineSearch;
+    private final int[] segment;
+
+    // Abstract graph, built for one grid version.
+    private TileGrid builtFor;
+    private int builtVersion;
+    private int cols;
+    private int rows;
+    private int clusterCols;
+    private int nodeCount;
+    private int[] nodeCells;
+    private int[] nodeClusters;
+    private int[] cellNodes;
+    private int[] clusterNodeStart;
+    private int[] clusterNodes;
+    private int[] edgeStart;
+    private int[] edgeTargets;
+    private int[] edgeCosts;
+    private int[] edgeSteps;
+
+    // Abstract search state per node; the goal tile is node nodeCount.
+    private int[] seen;
+    private int[] closed;
+    private int[] cost;
+    private int[] steps;
+    private int[] parent;
+    private int[] abstractPath;
+    private IndexHeap open;
+    private int epoch;
+    private int goalX;
+    private int goalY;
+
+    // Edge lists collected while building, before they are packed per node.
+    private int edgeCount;
+    private int[] edgeFrom = new int[64];
+    private int[] edgeTo = new int[64];
+    private int[] edgeCost = new int[64];
+    private int[] edgeStep = new int[64];
+
+    public HierarchicalPathfinding(int clusterSize, boolean diagonal) {
+        this.clusterSize = clusterSize;
+        this.diagonal = diagonal;
+        this.directions = diagonal ? GridSearch.ALL_DIRECTIONS : GridSearch.STRAIGHT_DIRECTIONS;
+        this.startSearch = new LocalSearch(clusterSize, directions);
+        this.goalSearch = new LocalSearch(clusterSize, directions);
+        this.refineSearch = new LocalSearch(clusterSize, directions);
+        this.segment = new int[clusterSize * clusterSize];
+    }
+
+    @Override
+    public int findPath(TileGrid grid, int startX, int startY, int goalX, int goalY, int[] out) {
+        if (!GridSearch.isOpen(grid, startX, startY) || !GridSearch.isOpen(grid, goalX, goalY)) {
+            return 0;
+        }
+        if (grid != builtFor || grid.getVersion() != builtVersion) {
+            build(grid);
+        }
+        int start = startY * cols + startX;
+        int goal = goalY * cols + goalX;
+        if (start == goal) {
+            if (out.length > 0) {
+                out[0] = start;
+            }
+            return 1;
+        }
+        this.goalX = goalX;
+        this.goalY = goalY;
+        int startCluster = clusterOf(startX, startY);
+        int goalCluster = clusterOf(goalX, goalY);
+        searchCluster(startSearch, grid, startCluster, startX, startY);
+        searchCluster(goalSearch, grid, goalCluster, goalX, goalY);
+
+        int goalNode = nodeCount;
+        int stamp = nextEpoch();
+        open.clear();
+        if (startCluster == goalCluster && goalSearch.reached(start)) {
+            relax(goalNode, START, goalSearch.cost(start), goalSearch.steps(start), stamp);
+        }
+        for (int i = clusterNodeStart[startCluster]; i < clusterNodeStart[startCluster + 1]; i++) {
+            int node = clusterNodes[i];
+            if (startSearch.reached(nodeCells[node])) {
+                relax(node, START, startSearch.cost(nodeCells[node]), startSearch.steps(nodeCells[node]), stamp);
+            }
+        }
+        while (!open.isEmpty()) {
+            int current = open.pop();
+            if (current == goalNode) {
+                return refine(grid, start, goal, out);
+            }
+            closed[current] = stamp;
+            int cell = nodeCells[current];
+            if (nodeClusters[current] == goalCluster && goalSearch.reached(cell)) {
+                relax(goalNode, current, cost[current] + goalSearch.cost(cell),
+                      steps[current] + goalSearch.steps(cell), stamp);
+            }
+            for (int e = edgeStart[current]; e < edgeStart[current + 1]; e++) {
+                relax(edgeTargets[e], current, cost[current] + edgeCosts[e], steps[current] + edgeSteps[e], stamp);
+            }
+        }
+        return 0;
+    }
+
+    private void relax(int node, int from, int newCost, int newSteps, int stamp) {
+        if (closed[node] == stamp || (seen[node] == stamp && newCost >= cost[node])) {
+            return;
+        }
+        seen[node] = stamp;
+        cost[node] = newCost;
+        steps[node] = newSteps;
+        parent[node] = from;
+        int cell = node == nodeCount ? goalY * cols + goalX : nodeCells[node];
+        open.push(node, newCost + GridSearch.heuristic(goalX - cell % cols, goalY - cell / cols, diagonal));
+    }
+
+    /**
+     * Writes the tiles of the abstract path found for start to goal, stopping
+     * once out is full.
+     *
+     * @return the number of cells on the whole path
+     */
+    private int refine(TileGrid grid, int start, int goal, int[] out) {
+        int goalNode = nodeCount;
+        int length = steps[goalNode] + 1;
+        // Nodes after the start, goal first.
+        int count = 0;
+        for (int node = goalNode; node != START; node = parent[node]) {
+            abstractPath[count++] = node;
+        }
+        int written = emit(out, 0, start);
+        if (count == 1) {
+            // Straight from start to goal inside one cluster.
+            for (int cell = start; cell != goal && written < out.length; ) {
+                cell = goalSearch.parent(cell);
+                written = emit(out, written, cell);
+            }
+            return length;
+        }
+        // Start to the first node: the start search points back at the start, so reverse it.
+        int first = nodeCells[abstractPath[count - 1]];
+        int segmentLength = 0;
+        for (int cell = first; cell != start; cell = startSearch.parent(cell)) {
+            segment[segmentLength++] = cell;
+        }
+        for (int i = segmentLength - 1; i >= 0 && written < out.length; i--) {
+            written = emit(out, written, segment[i]);
+        }
+        // Node to node: a border crossing is one step, a walk inside a cluster is searched again.
+        for (int i = count - 1; i > 1 && written < out.length; i--) {
+            int from = abstractPath[i];
+            int to = abstractPath[i - 1];
+            if (nodeClusters[from] != nodeClusters[to]) {
+                written = emit(out, written, nodeCells[to]);
+                continue;
+            }
+            int target = nodeCells[to];
+            searchCluster(refineSearch, grid, nodeClusters[to], target % cols, target / cols);
+            for (int cell = nodeCells[from]; cell != target && written < out.length; ) {
+                cell = refineSearch.parent(cell);
+                written = emit(out, written, cell);
+            }
+        }
+        // Last node to the goal along the goal search.
+        for (int cell = nodeCells[abstractPath[1]]; cell != goal && written < out.length; ) {
+            cell = goalSearch.parent(cell);
+            written = emit(out, written, cell);
+        }
+        return length;
+    }
+
+    private static int emit(int[] out, int written, int cell) {
+        if (written < out.length) {
+            out[written] = cell;
+        }
+        return written + 1;
+    }
+
+    private int clusterOf(int x, int y) {
+        return (y / clusterSize) * clusterCols + x / clusterSize;
+    }
+
+    private void searchCluster(LocalSearch search, TileGrid grid, int cluster, int x, int y) {
+        int originX = (cluster % clusterCols) * clusterSize;
+        int originY = (cluster / clusterCols) * clusterSize;
+        search.run(grid, cols, originX, originY,
+                   Math.min(clusterSize, cols - originX), Math.min(clusterSize, rows - originY), x, y);
+    }
+
+    private int nextEpoch() {
+        epoch++;
+        if (epoch == 0) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(closed, 0);
+            epoch = 1;
+        }
+        return epoch;
+    }
+
+    private void build(TileGrid grid) {
+        builtFor = grid;
+        builtVersion = grid.getVersion();
+        cols = grid.getWidth();
+        rows = grid.getHeight();
+        clusterCols = (cols + clusterSize - 1) / clusterSize;
+        int clusterRows = (rows + clusterSize - 1) / clusterSize;
+        if (cellNodes == null || cellNodes.length != cols * rows) {
+            cellNodes = new int[cols * rows];
+        }
+        Arrays.fill(cellNodes, NONE);
+        nodeCount = 0;
+        nodeCells = new int[64];
+        edgeCount = 0;
+
+        // Entrances across vertical borders, then across horizontal ones.
+        for (int cy = 0; cy < clusterRows; cy++) {
+            for (int cx = 0; cx + 1 < clusterCols; cx++) {
+                int x = (cx + 1) * clusterSize - 1;
+                addEntrances(grid, x, cy * clusterSize, 0, 1, Math.min(clusterSize, rows - cy * clusterSize), 1, 0);
+            }
+        }
+        for (int cy = 0; cy + 1 < clusterRows; cy++) {
+            for (int cx = 0; cx < clusterCols; cx++) {
+                int y = (cy + 1) * clusterSize - 1;
+                addEntrances(grid, cx * clusterSize, y, 1, 0, Math.min(clusterSize, cols - cx * clusterSize), 0, 1);
+            }
+        }
+
+        // Group nodes by cluster.
+        int clusters = clusterCols * clusterRows;
+        nodeClusters = new int[nodeCount];
+        clusterNodeStart = new int[clusters + 1];
+        for (int node = 0; node < nodeCount; node++) {
+            nodeClusters[node] = clusterOf(nodeCells[node] % cols, nodeCells[node] / cols);
+            clusterNodeStart[nodeClusters[node] + 1]++;
+        }
+        for (int c = 0; c < clusters; c++) {
+            clusterNodeStart[c + 1] += clusterNodeStart[c];
+        }
+        clusterNodes = new int[nodeCount];
+        int[] fill = Arrays.copyOf(clusterNodeStart, clusters);
+        for (int node = 0; node < nodeCount; node++) {
+            clusterNodes[fill[nodeClusters[node]]++] = node;
+        }
+
+        // Walking costs between the nodes of each cluster.
+        for (int c = 0; c < clusters; c++) {
+            for (int i = clusterNodeStart[c]; i < clusterNodeStart[c + 1]; i++) {
+                int from = clusterNodes[i];
+                searchCluster(refineSearch, grid, c, nodeCells[from] % cols, nodeCells[from] / cols);
+                for (int j = clusterNodeStart[c]; j < clusterNodeStart[c + 1]; j++) {
+                    int to = clusterNodes[j];
+                    if (to != from && refineSearch.reached(nodeCells[to])) {
+                        addEdge(from, to, refineSearch.cost(nodeCells[to]), refineSearch.steps(nodeCells[to]));
+                    }
+                }
+            }
+        }
+
+        // Pack the edges per node.
+        edgeStart = new int[nodeCount + 2];
+        for (int e = 0; e < edgeCount; e++) {
+            edgeStart[edgeFrom[e] + 1]++;
+        }
+        for (int node = 0; node <= nodeCount; node++) {
+            edgeStart[node + 1] += edgeStart[node];
+        }
+        edgeTargets = new int[edgeCount];
+        edgeCosts = new int[edgeCount];
+        edgeSteps = new int[edgeCount];
+        int[] next = Arrays.copyOf(edgeStart, nodeCount);
+        for (int e = 0; e < edgeCount; e++) {
+            int slot = next[edgeFrom[e]]++;
+            edgeTargets[slot] = edgeTo[e];
+            edgeCosts[slot] = edgeCost[e];
+            edgeSteps[slot] = edgeStep[e];
+        }
+
+        int nodes = nodeCount + 1;
+        seen = new int[nodes];
+        closed = new int[nodes];
+        cost = new int[nodes];
+        steps = new int[nodes];
+        parent = new int[nodes];
+        abstractPath = new int[nodes];
+        open = new IndexHeap(nodes);
+        epoch = 0;
+    }
+
+    /**
+     * Scans length tiles of a cluster border, starting at (x, y) and moving
+     * by (stepX, stepY); the facing tile across the border is offset by
+     * (acrossX, acrossY). Every run of open facing pairs gets a crossing in
+     * its middle, or one at each end if it is wide.
+     */
+    private void addEntrances(TileGrid grid, int x, int y, int stepX, int stepY, int length,
+                              int acrossX, int acrossY) {
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            int ax = x + i * stepX;
+            int ay = y + i * stepY;
+            boolean open = i < length && !grid.isWall(ax, ay) && !grid.isWall(ax + acrossX, ay + acrossY);
+            if (open && runStart < 0) {
+                runStart = i;
+            } else if (!open && runStart >= 0) {
+                int runLength = i - runStart;
+                if (runLength < 6) {
+                    addCrossing(x + (runStart + runLength / 2) * stepX, y + (runStart + runLength / 2) * stepY,
+                                acrossX, acrossY);
+                } else {
+                    addCrossing(x + runStart * stepX, y + runStart * stepY, acrossX, acrossY);
+                    addCrossing(x + (i - 1) * stepX, y + (i - 1) * stepY, acrossX, acrossY);
+                }
+                runStart = -1;
+            }
+        }
+    }
+
+    private void addCrossing(int x, int y, int acrossX, int acrossY) {
+        int inside = node(y * cols + x);
+        int outside = node((y + acrossY) * cols + x + acrossX);
+        addEdge(inside, outside, GridSearch.STRAIGHT_COST, 1);
+        addEdge(outside, inside, GridSearch.STRAIGHT_COST, 1);
+    }
+
+    // Returns the node on this cell, creating it the first time.
+    private int node(int cell) {
+        if (cellNodes[cell] == NONE) {
+            if (nodeCount == nodeCells.length) {
+                nodeCells = Arrays.copyOf(nodeCells, nodeCount * 2);
+            }
+            nodeCells[nodeCount] = cell;
+            cellNodes[cell] = nodeCount++;
+        }
+        return cellNodes[cell];
+    }
+
+    private void addEdge(int from, int to, int cost, int steps) {
+        if (edgeCount == edgeFrom.length) {
+            int capacity = edgeCount * 2;
+            edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+            edgeTo = Arrays.copyOf(edgeTo, capacity);
+            edgeCost = Arrays.copyOf(edgeCost, capacity);
+            edgeStep = Arrays.copyOf(edgeStep, capacity);
+        }
+        edgeFrom[edgeCount] = from;
+        edgeTo[edgeCount] = to;
+        edgeCost[edgeCount] = cost;
+        edgeStep[edgeCount] = steps;
+        edgeCount++;
+    }
+
+    /**
+     * Dijkstra from one tile over the tiles of a single cluster, with buffers
+     * sized for one cluster. Grid cells are translated to cluster-local slots.
+     */
+    private static final class LocalSearch {
+        private final int[][] directions;
+        private final int[] seen;
+        private final int[] cost;
+        private final int[] steps;
+        private final int[] parent;
+        private final IndexHeap heap;
+        private int epoch;
+        private int gridCols;
+        private int originX;
+        private int originY;
+        private int width;
+        private int height;
+
+        LocalSearch(int clusterSize, int[][] directions) {
+            int cells = clusterSize * clusterSize;
+            this.directions = directions;
+            this.seen = new int[cells];
+            this.cost = new int[cells];
+            this.steps = new int[cells];
+            this.parent = new int[cells];
+            this.heap = new IndexHeap(cells);
+        }
+
+        void run(TileGrid grid, int gridCols, int originX, int originY, int width, int height, int x, int y) {
+            this.gridCols = gridCols;
+            this.originX = originX;
+            this.originY = originY;
+            this.width = width;
+            this.height = height;
+            epoch++;
+            if (epoch == 0) {
+                Arrays.fill(seen, 0);
+                epoch = 1;
+            }
+            int source = (y - originY) * width + x - originX;
+            seen[source] = epoch;
+            cost[source] = 0;
+            steps[source] = 0;
+            parent[source] = NONE;
+            heap.clear();
+            heap.push(source, 0);
+            while (!heap.isEmpty()) {
+                int current = heap.pop();
+                int cx = originX + current % width;
+                int cy = originY + current / width;
+                for (int[] dir : directions) {
+                    int nx = cx + dir[0];
+                    int ny = cy + dir[1];
+                    if (nx < originX || ny < originY || nx >= originX + width || ny >= originY + height
+                            || !GridSearch.canStep(grid, cx, cy, dir[0], dir[1])) {
+                        continue;
+                    }
+                    int neighbour = (ny - originY) * width + nx - originX;
+                    int step = dir[0] != 0 && dir[1] != 0 ? GridSearch.DIAGONAL_COST : GridSearch.STRAIGHT_COST;
+                    int newCost = cost[current] + step;
+                    if (seen[neighbour] != epoch || newCost < cost[neighbour]) {
+                        seen[neighbour] = epoch;
+                        cost[neighbour] = newCost;
+                        steps[neighbour] = steps[current] + 1;
+                        parent[neighbour] = current;
+                        heap.push(neighbour, newCost);
+                    }
+                }
+            }
+        }
+
+        boolean reached(int cell) {
+            int x = cell % gridCols - originX;
+            int y = cell / gridCols - originY;
+            return x >= 0 && y >= 0 && x < width && y < height && seen[y * width + x] == epoch;
+        }
+
+        int cost(int cell) {
+            return cost[local(cell)];
+        }
+
+        int steps(int cell) {
+            return steps[local(cell)];
+        }
+
+        // The grid cell one step closer to the tile the search started from.
+        int parent(int cell) {
+            int slot = parent[local(cell)];
+            return (originY + slot / width) * gridCols + originX + slot % width;
+        }
+
+        private int local(int cell) {
+            return (cell / gridCols - originY) * width + cell % gridCols - originX;
+        }
+    }
+}
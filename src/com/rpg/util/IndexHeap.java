@@ -0,0 +1,89 @@
+package com.rpg.util;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of grid cell indices keyed by int priorities, backed by
+ * primitive arrays. Each cell remembers its heap slot, so a cell can be
+ * pushed again with a lower key and is moved up in place.
+ */
+final class IndexHeap {
+    private final int[] cells;
+    private final int[] keys;
+    private final int[] slots;
+    private int size;
+
+    IndexHeap(int capacity) {
+        cells = new int[capacity];
+        keys = new int[capacity];
+        slots = new int[capacity];
+        Arrays.fill(slots, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            slots[cells[i]] = -1;
+        }
+        size = 0;
+    }
+
+    // Inserts cell, or lowers its key if it is already queued with a higher one.
+    void push(int cell, int key) {
+        int slot = slots[cell];
+        if (slot < 0) {
+            slot = size++;
+        } else if (key >= keys[slot]) {
+            return;
+        }
+        siftUp(slot, cell, key);
+    }
+
+    int pop() {
+        int top = cells[0];
+        slots[top] = -1;
+        size--;
+        if (size > 0) {
+            siftDown(0, cells[size], keys[size]);
+        }
+        return top;
+    }
+
+    private void siftUp(int slot, int cell, int key) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            place(slot, cells[parent], keys[parent]);
+            slot = parent;
+        }
+        place(slot, cell, key);
+    }
+
+    private void siftDown(int slot, int cell, int key) {
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            int right = child + 1;
+            if (right < size && keys[right] < keys[child]) {
+                child = right;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            place(slot, cells[child], keys[child]);
+            slot = child;
+        }
+        place(slot, cell, key);
+    }
+
+    private void place(int slot, int cell, int key) {
+        cells[slot] = cell;
+        keys[slot] = key;
+        slots[cell] = slot;
+    }
+}
@@ -0,0 +1,232 @@
+package com.rpg.util;
+
+import com.rpg.config.TileGrid;
+import java.util.Arrays;
+
+/**
+ * Jump Point Search for uniform-cost grids. Instead of pushing every
+ * neighbour, it scans along straight (and, if enabled, diagonal) lines and only
+ * queues the tiles where a wall forces the path to turn, which makes long open
+ * corridors nearly free. Diagonal moves never cut wall corners, matching
+ * AStarPathfinding, and the jump points are expanded back into a full path.
+ */
+public class JumpPointSearch implements Pathfinder {
+    private final boolean diagonal;
+    private final int[] successors = new int[16];
+    private TileGrid grid;
+    private int rows;
+    private int cols;
+    private int goal;
+    private int[] seen;
+    private int[] closed;
+    private int[] cost;
+    private int[] parent;
+    private int[] waypoints;
+    private IndexHeap open;
+    private int epoch;
+
+    public JumpPointSearch(int cols, int rows, boolean diagonal) {
+        this.diagonal = diagonal;
+        allocate(cols, rows);
+    }
+
+    @Override
+    public int findPath(TileGrid grid, int startX, int startY, int goalX, int goalY, int[] out) {
+        if (!GridSearch.isOpen(grid, startX, startY) || !GridSearch.isOpen(grid, goalX, goalY)) {
+            return 0;
+        }
+        if (grid.getHeight() != rows || grid.getWidth() != cols) {
+            allocate(grid.getWidth(), grid.getHeight());
+        }
+        this.grid = grid;
+        int stamp = nextEpoch();
+        int start = startY * cols + startX;
+        goal = goalY * cols + goalX;
+        open.clear();
+        seen[start] = stamp;
+        cost[start] = 0;
+        parent[start] = start;
+        open.push(start, GridSearch.heuristic(goalX - startX, goalY - startY, diagonal));
+        while (!open.isEmpty()) {
+            int current = open.pop();
+            if (current == goal) {
+                return reconstructPath(start, out);
+            }
+            closed[current] = stamp;
+            int cx = current % cols;
+            int cy = current / cols;
+            int count = findSuccessorDirections(current, cx, cy);
+            for (int i = 0; i < count; i += 2) {
+                int jumpPoint = jump(cx + successors[i], cy + successors[i + 1], successors[i], successors[i + 1]);
+                if (jumpPoint < 0 || closed[jumpPoint] == stamp) {
+                    continue;
+                }
+                int jx = jumpPoint % cols;
+                int jy = jumpPoint / cols;
+                int newCost = cost[current] + GridSearch.heuristic(jx - cx, jy - cy, diagonal);
+                if (seen[jumpPoint] != stamp || newCost < cost[jumpPoint]) {
+                    seen[jumpPoint] = stamp;
+                    cost[jumpPoint] = newCost;
+                    parent[jumpPoint] = current;
+                    open.push(jumpPoint, newCost + GridSearch.heuristic(goalX - jx, goalY - jy, diagonal));
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Fills successors with the (dx, dy) pairs worth jumping along from the
+     * current tile, pruned by the direction we arrived from.
+     *
+     * @return the number of ints written, two per direction
+     */
+    private int findSuccessorDirections(int current, int x, int y) {
+        int count = 0;
+        if (parent[current] == current) {
+            int[][] directions = diagonal ? GridSearch.ALL_DIRECTIONS : GridSearch.STRAIGHT_DIRECTIONS;
+            for (int[] dir : directions) {
+                if (GridSearch.canStep(grid, x, y, dir[0], dir[1])) {
+                    count = add(count, dir[0], dir[1]);
+                }
+            }
+            return count;
+        }
+        int dx = Integer.signum(x - parent[current] % cols);
+        int dy = Integer.signum(y - parent[current] / cols);
+        if (dx != 0 && dy != 0) {
+            boolean vertical = isOpen(x, y + dy);
+            boolean horizontal = isOpen(x + dx, y);
+            if (vertical) {
+                count = add(count, 0, dy);
+            }
+            if (horizontal) {
+                count = add(count, dx, 0);
+            }
+            if (vertical && horizontal) {
+                count = add(count, dx, dy);
+            }
+        } else if (dx != 0) {
+            boolean below = isOpen(x, y + 1);
+            boolean above = isOpen(x, y - 1);
+            count = add(count, dx, 0);
+            if (diagonal && isOpen(x + dx, y)) {
+                if (below) {
+                    count = add(count, dx, 1);
+                }
+                if (above) {
+                    count = add(count, dx, -1);
+                }
+            }
+            if (below) {
+                count = add(count, 0, 1);
+            }
+            if (above) {
+                count = add(count, 0, -1);
+            }
+        } else {
+            boolean right = isOpen(x + 1, y);
+            boolean left = isOpen(x - 1, y);
+            count = add(count, 0, dy);
+            if (diagonal && isOpen(x, y + dy)) {
+                if (right) {
+                    count = add(count, 1, dy);
+                }
+                if (left) {
+                    count = add(count, -1, dy);
+                }
+            }
+            if (right) {
+                count = add(count, 1, 0);
+            }
+            if (left) {
+                count = add(count, -1, 0);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Scans from (x, y) in direction (dx, dy) and returns the first jump point
+     * as a packed index, or -1 if the scan runs into a wall. Straight scans
+     * never recurse; diagonal scans (and vertical scans on a 4-connected grid)
+     * probe straight lines one level deep.
+     */
+    private int jump(int x, int y, int dx, int dy) {
+        while (true) {
+            if (!isOpen(x, y)) {
+                return -1;
+            }
+            int cell = y * cols + x;
+            if (cell == goal) {
+                return cell;
+            }
+            if (dx != 0 && dy != 0) {
+                if (jump(x + dx, y, dx, 0) >= 0 || jump(x, y + dy, 0, dy) >= 0) {
+                    return cell;
+                }
+                if (!GridSearch.canStep(grid, x, y, dx, dy)) {
+                    return -1;
+                }
+            } else if (dx != 0) {
+                if ((isOpen(x, y - 1) && !isOpen(x - dx, y - 1))
+                        || (isOpen(x, y + 1) && !isOpen(x - dx, y + 1))) {
+                    return cell;
+                }
+            } else {
+                if ((isOpen(x - 1, y) && !isOpen(x - 1, y - dy))
+                        || (isOpen(x + 1, y) && !isOpen(x + 1, y - dy))) {
+                    return cell;
+                }
+                // Without diagonals, vertical scans must stop wherever a horizontal scan finds something.
+                if (!diagonal && (jump(x + 1, y, 1, 0) >= 0 || jump(x - 1, y, -1, 0) >= 0)) {
+                    return cell;
+                }
+            }
+            x += dx;
+            y += dy;
+        }
+    }
+
+    private int reconstructPath(int start, int[] out) {
+        int count = 0;
+        for (int cell = goal; cell != start; cell = parent[cell]) {
+            waypoints[count++] = cell;
+        }
+        waypoints[count++] = start;
+        return GridSearch.expand(waypoints, count, cols, out);
+    }
+
+    private boolean isOpen(int x, int y) {
+        return GridSearch.isOpen(grid, x, y);
+    }
+
+    private int add(int count, int dx, int dy) {
+        successors[count] = dx;
+        successors[count + 1] = dy;
+        return count + 2;
+    }
+
+    private int nextEpoch() {
+        epoch++;
+        if (epoch == 0) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(closed, 0);
+            epoch = 1;
+        }
+        return epoch;
+    }
+
+    private void allocate(int cols, int rows) {
+        this.rows = rows;
+        this.cols = cols;
+        int cells = rows * cols;
+        seen = new int[cells];
+        closed = new int[cells];
+        cost = new int[cells];
+        parent = new int[cells];
+        waypoints = new int[cells];
+        open = new IndexHeap(cells);
+        epoch = 0;
+    }
+}
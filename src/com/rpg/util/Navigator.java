@@ -0,0 +1,19 @@
+package com.rpg.util;
+
+/**
+ * Tells chasers which tile to step onto next on their way to a shared goal.
+ * Once setGoal has returned, nextStep may be called from several threads
+ * at once.
+ */
+public interface Navigator {
+    // Called once per tick with the goal tile, before any nextStep query.
+    void setGoal(int goalX, int goalY);
+
+    /**
+     * Returns the packed index (y * columns + x) of the next tile towards the
+     * goal, or -1 if the tile is the goal itself, a wall or unreachable.
+     */
+    int nextStep(int x, int y);
+
+    int getColumns();
+}
@@ -0,0 +1,255 @@
+package com.rpg.util;
+
+import com.rpg.config.TileGrid;
+import java.util.Arrays;
+
+/**
+ * Bounded LRU cache of pathfinding results keyed by (start cell, goal cell),
+ * where a result is the next cell to step onto, or -1 for no path. Entries
+ * are tied to the TileGrid version they were computed against: the first
+ * lookup after the walls change drops the whole cache.
+ * Everything lives in primitive arrays (a chained hash table plus an
+ * intrusive recency list), so lookups never allocate. AI worker threads
+ * share one cache, so it is split into independently locked stripes chosen
+ * by key hash; threads only wait for each other when they hit the same
+ * stripe, and recency is tracked per stripe.
+ */
+public class PathCache {
+    public static final int MISS = Integer.MIN_VALUE;
+
+    private static final int NONE = -1;
+    private static final int STRIPE_BITS = 4;
+    private static final int MAX_STRIPES = 1 << STRIPE_BITS;
+
+    private final TileGrid grid;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private volatile int version;
+
+    // Metrics.
+    private long invalidations;
+
+    public PathCache(TileGrid grid, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Path cache capacity must be at least 1, was " + capacity);
+        }
+        this.grid = grid;
+        this.version = grid.getVersion();
+        int stripeCount = Math.min(MAX_STRIPES, Integer.highestOneBit(capacity));
+        this.stripes = new Stripe[stripeCount];
+        this.stripeMask = stripeCount - 1;
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(capacity / stripeCount + (i < capacity % stripeCount ? 1 : 0), version);
+        }
+    }
+
+    // Returns the cached next cell for this start and goal, or MISS.
+    public int get(int start, int goal) {
+        long key = key(start, goal);
+        long mixed = mix(key);
+        return stripes[(int) mixed & stripeMask].get(key, mixed, checkVersion());
+    }
+
+    // Stores a result, evicting the stripe's least recently used entry when it is full.
+    public void put(int start, int goal, int nextCell) {
+        long key = key(start, goal);
+        long mixed = mix(key);
+        stripes[(int) mixed & stripeMask].put(key, mixed, nextCell, checkVersion());
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    public long getHits() {
+        long hits = 0;
+        for (Stripe stripe : stripes) {
+            hits += stripe.getHits();
+        }
+        return hits;
+    }
+
+    public long getMisses() {
+        long misses = 0;
+        for (Stripe stripe : stripes) {
+            misses += stripe.getMisses();
+        }
+        return misses;
+    }
+
+    // How often the cache was dropped because the walls changed.
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    // Returns the current grid version, counting the change the first time it is seen; stripes clear themselves lazily.
+    private int checkVersion() {
+        int current = grid.getVersion();
+        if (current != version) {
+            synchronized (this) {
+                if (current != version) {
+                    version = current;
+                    invalidations++;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static long mix(long key) {
+        return (key * 0x9E3779B97F4A7C15L) >>> 32;
+    }
+
+    private static long key(int start, int goal) {
+        return ((long) start << 32) | (goal & 0xFFFFFFFFL);
+    }
+
+    // One independently locked part of the cache, holding the keys whose hash selects it.
+    private static final class Stripe {
+        private final long[] keys;
+        private final int[] values;
+        private final int[] chain;
+        private final int[] newer;
+        private final int[] older;
+        private final int[] buckets;
+        private final int bucketMask;
+        private int size;
+        private int newest = NONE;
+        private int oldest = NONE;
+        private int version;
+        private long hits;
+        private long misses;
+
+        Stripe(int capacity, int version) {
+            this.keys = new long[capacity];
+            this.values = new int[capacity];
+            this.chain = new int[capacity];
+            this.newer = new int[capacity];
+            this.older = new int[capacity];
+            this.buckets = new int[Integer.highestOneBit(Math.max(1, capacity * 2 - 1)) << 1];
+            this.bucketMask = buckets.length - 1;
+            this.version = version;
+            Arrays.fill(buckets, NONE);
+        }
+
+        synchronized int get(long key, long mixed, int gridVersion) {
+            checkVersion(gridVersion);
+            for (int entry = buckets[bucket(mixed)]; entry != NONE; entry = chain[entry]) {
+                if (keys[entry] == key) {
+                    hits++;
+                    unlink(entry);
+                    linkNewest(entry);
+                    return values[entry];
+                }
+            }
+            misses++;
+            return MISS;
+        }
+
+        synchronized void put(long key, long mixed, int nextCell, int gridVersion) {
+            checkVersion(gridVersion);
+            int bucket = bucket(mixed);
+            for (int entry = buckets[bucket]; entry != NONE; entry = chain[entry]) {
+                if (keys[entry] == key) {
+                    values[entry] = nextCell;
+                    unlink(entry);
+                    linkNewest(entry);
+                    return;
+                }
+            }
+            int entry;
+            if (size < keys.length) {
+                entry = size++;
+            } else {
+                entry = oldest;
+                unlink(entry);
+                removeFromBucket(entry);
+            }
+            keys[entry] = key;
+            values[entry] = nextCell;
+            chain[entry] = buckets[bucket];
+            buckets[bucket] = entry;
+            linkNewest(entry);
+        }
+
+        synchronized void clear() {
+            Arrays.fill(buckets, NONE);
+            size = 0;
+            newest = NONE;
+            oldest = NONE;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized long getHits() {
+            return hits;
+        }
+
+        synchronized long getMisses() {
+            return misses;
+        }
+
+        private void checkVersion(int gridVersion) {
+            if (gridVersion != version) {
+                version = gridVersion;
+                clear();
+            }
+        }
+
+        private void removeFromBucket(int entry) {
+            int bucket = bucket(mix(keys[entry]));
+            if (buckets[bucket] == entry) {
+                buckets[bucket] = chain[entry];
+                return;
+            }
+            for (int previous = buckets[bucket]; ; previous = chain[previous]) {
+                if (chain[previous] == entry) {
+                    chain[previous] = chain[entry];
+                    return;
+                }
+            }
+        }
+
+        private void linkNewest(int entry) {
+            older[entry] = newest;
+            newer[entry] = NONE;
+            if (newest != NONE) {
+                newer[newest] = entry;
+            }
+            newest = entry;
+            if (oldest == NONE) {
+                oldest = entry;
+            }
+        }
+
+        private void unlink(int entry) {
+            if (newer[entry] != NONE) {
+                older[newer[entry]] = older[entry];
+            } else {
+                newest = older[entry];
+            }
+            if (older[entry] != NONE) {
+                newer[older[entry]] = newer[entry];
+            } else {
+                oldest = newer[entry];
+            }
+        }
+
+        // The stripe is picked from the low bits of the mixed key, so buckets use the bits above them.
+        private int bucket(long mixed) {
+            return (int) (mixed >>> STRIPE_BITS) & bucketMask;
+        }
+    }
+}
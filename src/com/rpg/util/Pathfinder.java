@@ -0,0 +1,18 @@
+package com.rpg.util;
+
+import com.rpg.config.TileGrid;
+
+/**
+ * Grid search from one tile to another over the level's wall grid. Cells
+ * are reported as packed indices (y * width + x), the grid's own
+ * row-major indexing.
+ */
+public interface Pathfinder {
+    /**
+     * Writes the path from start to goal, start first, into out. If out is
+     * shorter than the path only its first out.length cells are written.
+     *
+     * @return the number of cells on the path including start and goal, or 0 if there is none
+     */
+    int findPath(TileGrid grid, int startX, int startY, int goalX, int goalY, int[] out);
+}
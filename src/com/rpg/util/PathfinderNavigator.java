@@ -0,0 +1,59 @@
+package com.rpg.util;
+
+import com.rpg.config.TileGrid;
+import java.util.function.Supplier;
+
+/**
+ * Navigator that runs one Pathfinder query per chaser, keeping only the
+ * first step of each path. Pathfinders keep per-search state, so every
+ * thread asking for steps gets its own instance from the factory. Results
+ * go through a shared PathCache, so chasers on the same tile, or one asking
+ * again before anything moved, do not search twice.
+ */
+public class PathfinderNavigator implements Navigator {
+    private final TileGrid grid;
+    private final ThreadLocal<Pathfinder> pathfinders;
+    private final ThreadLocal<int[]> steps = ThreadLocal.withInitial(() -> new int[2]);
+    private final PathCache cache;
+    private int goalX = -1;
+    private int goalY = -1;
+
+    public PathfinderNavigator(TileGrid grid, Supplier<Pathfinder> pathfinderFactory, int cacheSize) {
+        this.grid = grid;
+        this.pathfinders = ThreadLocal.withInitial(pathfinderFactory);
+        this.cache = new PathCache(grid, cacheSize);
+    }
+
+    @Override
+    public void setGoal(int goalX, int goalY) {
+        this.goalX = goalX;
+        this.goalY = goalY;
+    }
+
+    @Override
+    public int nextStep(int x, int y) {
+        if (!grid.contains(x, y) || !grid.contains(goalX, goalY)) {
+            return -1;
+        }
+        int start = grid.index(x, y);
+        int goal = grid.index(goalX, goalY);
+        int cached = cache.get(start, goal);
+        if (cached != PathCache.MISS) {
+            return cached;
+        }
+        int[] step = steps.get();
+        int length = pathfinders.get().findPath(grid, x, y, goalX, goalY, step);
+        int next = length > 1 ? step[1] : -1;
+        cache.put(start, goal, next);
+        return next;
+    }
+
+    public PathCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public int getColumns() {
+        return grid.getWidth();
+    }
+}
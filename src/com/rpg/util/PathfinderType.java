@@ -0,0 +1,27 @@
+package com.rpg.util;
+
+/**
+ * The available Pathfinder implementations, selectable from GameConfig.
+ * BFS is cheapest on small maps, A* on long open routes, and JPS on large
+ * open areas where it skips over runs of empty tiles. HPA trades exact
+ * shortest paths for near-constant query cost on big levels.
+ */
+public enum PathfinderType {
+    BFS,
+    ASTAR,
+    JPS,
+    HPA;
+
+    public Pathfinder create(int cols, int rows, boolean diagonal) {
+        switch (this) {
+            case ASTAR:
+                return new AStarPathfinding(cols, rows, diagonal);
+            case JPS:
+                return new JumpPointSearch(cols, rows, diagonal);
+            case HPA:
+                return new HierarchicalPathfinding(HierarchicalPathfinding.DEFAULT_CLUSTER_SIZE, diagonal);
+            default:
+                return new BFSPathfinding(cols, rows, diagonal);
+        }
+    }
+}
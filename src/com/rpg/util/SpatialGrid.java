@@ -0,0 +1,301 @@
+package com.rpg.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Uniform grid that buckets axis-aligned boxes by cell so that overlap queries
+ * only visit the few cells a box touches instead of every stored item.
+ * Items spanning several cells are stored in each of them; queries report
+ * every item at most once. The grid can be rebuilt every tick with clear and
+ * insert, or kept up to date with move and remove, which only touch cells
+ * when an item crosses a cell border.
+ * Only occupied cells exist: they live in an open-addressing hash table
+ * keyed by cell, and a cell that empties goes back to a pool for reuse, so
+ * memory follows the number of items rather than the size of the world.
+ * Every entry remembers the first cell its item covers, so a query spanning
+ * several cells reports an item only from the first of them it shares with
+ * the item, without searching what it already reported. Queries only read,
+ * so several threads may run them at once.
+ */
+public class SpatialGrid<T> {
+    // What sweep returns when the boxes never meet.
+    public static final double NO_HIT = Double.POSITIVE_INFINITY;
+
+    private static final long EMPTY = -1;
+    private static final int INITIAL_SLOTS = 64;
+
+    private final int cellSize;
+    private final int cols;
+    private final int rows;
+    // Occupied cells by key (row * cols + col), linearly probed; the table is never more than half full.
+    private long[] keys;
+    private Cell<T>[] cells;
+    private int shift;
+    private int occupied;
+    private final List<Cell<T>> freeCells = new ArrayList<>();
+
+    public SpatialGrid(double width, double height, int cellSize) {
+        this.cellSize = cellSize;
+        this.cols = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        allocate(INITIAL_SLOTS);
+    }
+
+    public void insert(T item, double x, double y, double width, double height) {
+        int minCol = toCol(x);
+        int maxCol = toCol(x + width);
+        int minRow = toRow(y);
+        int maxRow = toRow(y + height);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                cellAt(key(col, row)).add(item, minCol, minRow);
+            }
+        }
+    }
+
+    /**
+     * Moves an item inserted with the old box to the new box. Nothing
+     * happens unless the set of cells it covers changes.
+     */
+    public void move(T item, double oldX, double oldY, double newX, double newY, double width, double height) {
+        if (toCol(oldX) == toCol(newX) && toCol(oldX + width) == toCol(newX + width)
+                && toRow(oldY) == toRow(newY) && toRow(oldY + height) == toRow(newY + height)) {
+            return;
+        }
+        remove(item, oldX, oldY, width, height);
+        insert(item, newX, newY, width, height);
+    }
+
+    // Removes an item from the cells covered by the box it was inserted or last moved with.
+    public void remove(T item, double x, double y, double width, double height) {
+        int minCol = toCol(x);
+        int maxCol = toCol(x + width);
+        int minRow = toRow(y);
+        int maxRow = toRow(y + height);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                int slot = find(key(col, row));
+                if (slot >= 0 && cells[slot].remove(item) && cells[slot].size == 0) {
+                    freeCells.add(cells[slot]);
+                    delete(slot);
+                }
+            }
+        }
+    }
+
+    // Empties every cell but keeps the cells and the table, so rebuilding each tick does not allocate.
+    public void clear() {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                cells[slot].clear();
+                freeCells.add(cells[slot]);
+                keys[slot] = EMPTY;
+                cells[slot] = null;
+            }
+        }
+        occupied = 0;
+    }
+
+    /**
+     * Appends to out every item stored in a cell overlapped by the given box.
+     * Callers still have to run their exact overlap test on the candidates.
+     */
+    public void query(double x, double y, double width, double height, List<T> out) {
+        int minCol = toCol(x);
+        int maxCol = toCol(x + width);
+        int minRow = toRow(y);
+        int maxRow = toRow(y + height);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                int slot = find(key(col, row));
+                if (slot < 0) {
+                    continue;
+                }
+                Cell<T> cell = cells[slot];
+                for (int i = 0; i < cell.size; i++) {
+                    // Report the item only from the first cell of the query it covers.
+                    if (Math.max(cell.minCols[i], minCol) == col && Math.max(cell.minRows[i], minRow) == row) {
+                        out.add(cell.items.get(i));
+                    }
+                }
+            }
+        }
+    }
+
+    // Same edge semantics as JavaFX Bounds.intersects: touching boxes overlap.
+    public static boolean intersects(double ax, double ay, double aw, double ah,
+                                     double bx, double by, double bw, double bh) {
+        return ax <= bx + bw && ax + aw >= bx && ay <= by + bh && ay + ah >= by;
+    }
+
+    /**
+     * Moves box a by (dx, dy) and returns the fraction of the move, in
+     * [0, 1], at which it first intersects box b, or NO_HIT if it never
+     * does. Touching counts, as in intersects, and a box that starts out
+     * intersecting hits at 0.
+     */
+    public static double sweep(double ax, double ay, double aw, double ah, double dx, double dy,
+                               double bx, double by, double bw, double bh) {
+        double enter = Double.NEGATIVE_INFINITY;
+        double exit = Double.POSITIVE_INFINITY;
+        if (dx == 0) {
+            if (ax > bx + bw || ax + aw < bx) {
+                return NO_HIT;
+            }
+        } else {
+            double near = (bx - ax - aw) / dx;
+            double far = (bx + bw - ax) / dx;
+            enter = Math.min(near, far);
+            exit = Math.max(near, far);
+        }
+        if (dy == 0) {
+            if (ay > by + bh || ay + ah < by) {
+                return NO_HIT;
+            }
+        } else {
+            double near = (by - ay - ah) / dy;
+            double far = (by + bh - ay) / dy;
+            enter = Math.max(enter, Math.min(near, far));
+            exit = Math.min(exit, Math.max(near, far));
+        }
+        if (enter > exit || enter > 1 || exit < 0) {
+            return NO_HIT;
+        }
+        return Math.max(0, enter);
+    }
+
+    private long key(int col, int row) {
+        return (long) row * cols + col;
+    }
+
+    private int home(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    // Slot of the cell with this key, or -1 if it holds nothing.
+    private int find(long key) {
+        int mask = keys.length - 1;
+        for (int slot = home(key); ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            if (keys[slot] == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    // The cell with this key, taking one from the pool if it does not exist yet.
+    private Cell<T> cellAt(long key) {
+        int slot = find(key);
+        if (slot >= 0) {
+            return cells[slot];
+        }
+        if (2 * (occupied + 1) > keys.length) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        slot = home(key);
+        while (keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        Cell<T> cell = freeCells.isEmpty() ? new Cell<>() : freeCells.remove(freeCells.size() - 1);
+        keys[slot] = key;
+        cells[slot] = cell;
+        occupied++;
+        return cell;
+    }
+
+    // Empties a slot, shifting later entries of the same probe run back so lookups never stop early.
+    private void delete(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            // An entry may only move back if the hole is not before its home slot.
+            if (((next - home(keys[next])) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                cells[hole] = cells[next];
+                hole = next;
+            }
+        }
+        keys[hole] = EMPTY;
+        cells[hole] = null;
+        occupied--;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        Cell<T>[] oldCells = cells;
+        allocate(2 * oldKeys.length);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = home(oldKeys[i]);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                cells[slot] = oldCells[i];
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int slots) {
+        keys = new long[slots];
+        Arrays.fill(keys, EMPTY);
+        cells = (Cell<T>[]) new Cell<?>[slots];
+        shift = Long.SIZE - Integer.numberOfTrailingZeros(slots);
+    }
+
+    private int toCol(double x) {
+        int col = (int) Math.floor(x / cellSize);
+        return Math.max(0, Math.min(cols - 1, col));
+    }
+
+    private int toRow(double y) {
+        int row = (int) Math.floor(y / cellSize);
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+
+    // Items of one cell, each with the first (top-left) cell its box covers.
+    private static final class Cell<T> {
+        final List<T> items = new ArrayList<>();
+        int[] minCols = new int[4];
+        int[] minRows = new int[4];
+        int size;
+
+        void add(T item, int minCol, int minRow) {
+            if (size == minCols.length) {
+                minCols = Arrays.copyOf(minCols, 2 * size);
+                minRows = Arrays.copyOf(minRows, 2 * size);
+            }
+            items.add(item);
+            minCols[size] = minCol;
+            minRows[size] = minRow;
+            size++;
+        }
+
+        // Order inside a cell does not matter, so the last item fills the hole. Returns whether it was found.
+        boolean remove(T item) {
+            for (int i = 0; i < size; i++) {
+                if (items.get(i) == item) {
+                    int last = --size;
+                    items.set(i, items.get(last));
+                    items.remove(last);
+                    minCols[i] = minCols[last];
+                    minRows[i] = minRows[last];
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void clear() {
+            items.clear();
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.rpg.util;
+
+import com.rpg.config.TileGrid;
+
+/**
+ * Box-versus-tile-grid collision that reads the wall bitset directly.
+ * A box no larger than a tile overlaps at most four tiles, so a query only
+ * looks at those cells and never allocates or touches the scene graph.
+ * sweep extends this to a moving box, walking the tiles along its path
+ * with a DDA so fast boxes cannot pass through a wall between two ticks.
+ */
+public final class TileCollision {
+    private TileCollision() {
+    }
+
+    /**
+     * Returns true if the box (x, y, width, height) overlaps a wall tile.
+     * Boxes that only touch a wall edge do not collide, so an entity can sit
+     * flush against a wall. Cells outside the grid are walls.
+     */
+    public static boolean collides(TileGrid grid, double x, double y, double width, double height, int tileSize) {
+        int minCol = (int) Math.floor(x / tileSize);
+        int minRow = (int) Math.floor(y / tileSize);
+        // ceil - 1 keeps a box that ends exactly on a tile edge out of the next tile.
+        int maxCol = (int) Math.ceil((x + width) / tileSize) - 1;
+        int maxRow = (int) Math.ceil((y + height) / tileSize) - 1;
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                if (grid.isWall(col, row)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves the square box (x, y, size) by (dx, dy) and returns the fraction
+     * of the move, in [0, 1), at which it first overlaps a wall tile, or
+     * SpatialGrid.NO_HIT if the whole move is clear. Edges follow collides:
+     * sliding along a wall or stopping flush against it is no hit.
+     *
+     * The box centre is walked through the grid cell by cell (Amanatides and
+     * Woo); as the box is no larger than a tile it can only overlap the
+     * centre's cell and its eight neighbours, so the walls among those are
+     * tested exactly. The walk stops once it reaches cells entered after the
+     * earliest hit found so far.
+     */
+    public static double sweep(TileGrid grid, double x, double y, double size, double dx, double dy, int tileSize) {
+        // Most moves are shorter than a tile and nowhere near a wall: rule those out with the box around the move.
+        if (!collides(grid, Math.min(x, x + dx), Math.min(y, y + dy), size + Math.abs(dx), size + Math.abs(dy), tileSize)) {
+            return SpatialGrid.NO_HIT;
+        }
+        double centerX = x + size / 2;
+        double centerY = y + size / 2;
+        int col = (int) Math.floor(centerX / tileSize);
+        int row = (int) Math.floor(centerY / tileSize);
+        int endCol = (int) Math.floor((centerX + dx) / tileSize);
+        int endRow = (int) Math.floor((centerY + dy) / tileSize);
+        int stepCol = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+        int stepRow = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+        // Fraction of the move at which the centre crosses the next column / row border, and between borders.
+        double nextCol = dx == 0 ? Double.POSITIVE_INFINITY : ((col + (dx > 0 ? 1 : 0)) * tileSize - centerX) / dx;
+        double nextRow = dy == 0 ? Double.POSITIVE_INFINITY : ((row + (dy > 0 ? 1 : 0)) * tileSize - centerY) / dy;
+        double colStep = dx == 0 ? Double.POSITIVE_INFINITY : tileSize / Math.abs(dx);
+        double rowStep = dy == 0 ? Double.POSITIVE_INFINITY : tileSize / Math.abs(dy);
+        double earliest = SpatialGrid.NO_HIT;
+        while (true) {
+            for (int r = row - 1; r <= row + 1; r++) {
+                for (int c = col - 1; c <= col + 1; c++) {
+                    if (grid.isWall(c, r)) {
+                        earliest = Math.min(earliest, sweepTile(x, y, size, dx, dy, c * tileSize, r * tileSize, tileSize));
+                    }
+                }
+            }
+            if (col == endCol && row == endRow) {
+                return earliest;
+            }
+            double entered;
+            if (nextCol < nextRow) {
+                entered = nextCol;
+                col += stepCol;
+                nextCol += colStep;
+            } else {
+                entered = nextRow;
+                row += stepRow;
+                nextRow += rowStep;
+            }
+            if (entered > 1 || entered >= earliest) {
+                return earliest;
+            }
+        }
+    }
+
+    // SpatialGrid.sweep against one tile, but with the open overlap of collides: touching is not a hit.
+    private static double sweepTile(double x, double y, double size, double dx, double dy,
+                                    double tileX, double tileY, int tileSize) {
+        double enter = Double.NEGATIVE_INFINITY;
+        double exit = Double.POSITIVE_INFINITY;
+        if (dx == 0) {
+            if (x >= tileX + tileSize || x + size <= tileX) {
+                return SpatialGrid.NO_HIT;
+            }
+        } else {
+            double near = (tileX - x - size) / dx;
+            double far = (tileX + tileSize - x) / dx;
+            enter = Math.min(near, far);
+            exit = Math.max(near, far);
+        }
+        if (dy == 0) {
+            if (y >= tileY + tileSize || y + size <= tileY) {
+                return SpatialGrid.NO_HIT;
+            }
+        } else {
+            double near = (tileY - y - size) / dy;
+            double far = (tileY + tileSize - y) / dy;
+            enter = Math.max(enter, Math.min(near, far));
+            exit = Math.min(exit, Math.max(near, far));
+        }
+        if (enter >= exit || enter >= 1 || exit <= 0) {
+            return SpatialGrid.NO_HIT;
+        }
+        return Math.max(0, enter);
+    }
+}